@@ -0,0 +1,47 @@
+package com.myretail.products.benchmark;
+
+import com.myretail.products.construction.ProductPriceFactory;
+import com.myretail.products.construction.ProductResponseBuilder;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.redsky.RedSkyItem;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
+import com.myretail.products.model.response.Price;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the construction of the models built on every request: the product response assembled
+ * from RedSky and pricing details, and the product price created from a PUT request.
+ */
+@State(Scope.Benchmark)
+public class ConstructionBenchmark {
+    private RedSkyProduct redSkyProduct = new RedSkyProduct(
+            new RedSkyItem("16696652", new RedSkyProductDescription("Beats Solo 2 Wireless - Black")));
+    private ProductPrice price = new ProductPrice(16696652L, 26.0F, "USD");
+    private Product request = new Product(null, "Beats Solo 2 Wireless - Black", new Price(39.99F, "usd"));
+
+    @Benchmark
+    public ProductResponse buildResponse() {
+        return ProductResponseBuilder
+                .fromProduct(redSkyProduct)
+                .withPrice(price)
+                .build();
+    }
+
+    @Benchmark
+    public ProductResponse buildResponseWithoutPrice() {
+        return ProductResponseBuilder
+                .fromProduct(redSkyProduct)
+                .withPrice(null)
+                .build();
+    }
+
+    @Benchmark
+    public ProductPrice createPrice() {
+        return ProductPriceFactory.create(16696652L, request);
+    }
+}
@@ -0,0 +1,71 @@
+package com.myretail.products.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myretail.products.codec.RedSkyResponseConverter;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares binding the whole RedSky response with the object mapper against streaming over it for
+ * the mapped fields only. RedSky responses are mostly made of fields the service ignores (images,
+ * offers, reviews, ...), so the payload is padded with such fields up to the given size, either
+ * after the item (best case for streaming, which stops once the item is read) or before it.
+ */
+@State(Scope.Benchmark)
+public class RedSkyDecodingBenchmark {
+    private static final String ITEM = "\"item\":{\"tcin\":\"16696652\",\"dpci\":\"058-34-0436\"," +
+            "\"product_description\":{\"title\":\"Beats Solo 2 Wireless - Black\"," +
+            "\"bullet_description\":[\"<B>Battery:</B> Rechargeable lithium ion\"]}}";
+
+    @Param({"2048", "20480", "204800"})
+    private int size;
+
+    @Param({"first", "last"})
+    private String itemPosition;
+
+    private ObjectReader reader;
+    private RedSkyResponseConverter converter;
+    private byte[] payload;
+
+    @Setup
+    public void initialize() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        reader = mapper.readerFor(RedSkyResponse.class);
+        converter = new RedSkyResponseConverter(mapper.getFactory());
+
+        String padding = padding(size);
+        String product = "first".equals(itemPosition) ? ITEM + "," + padding : padding + "," + ITEM;
+        payload = ("{\"product\":{" + product + "}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public RedSkyResponse bind() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    @Benchmark
+    public RedSkyResponse stream() throws IOException {
+        return converter.decode(new ByteArrayInputStream(payload));
+    }
+
+    private static String padding(int size) {
+        StringBuilder padding = new StringBuilder("\"enrichment\":{\"images\":[");
+        for (int i = 0; padding.length() < size; i++) {
+            if (i > 0) padding.append(',');
+            padding.append("{\"base_url\":\"https://target.scene7.com/is/image/Target/\",\"primary\":\"GUEST_")
+                    .append(i)
+                    .append("\",\"alternate_urls\":[\"GUEST_a\",\"GUEST_b\"],\"content_labels\":[{\"image_url\":\"GUEST_c\",\"title\":\"Image\"}]}");
+        }
+        return padding.append("]}").toString();
+    }
+}
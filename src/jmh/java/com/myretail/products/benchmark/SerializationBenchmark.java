@@ -0,0 +1,67 @@
+package com.myretail.products.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import com.myretail.products.model.response.Price;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Measures the JSON (de)serialization done on every request: reading the RedSky response and
+ * writing the product response. The object mapper is configured the same way as the one Spring
+ * Boot provides to the application.
+ */
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    // Trimmed down RedSky response; most of it is ignored when mapping it to the domain model
+    private static final String REDSKY_RESPONSE = "{\"product\":{" +
+            "\"available_to_promise_network\":{\"product_id\":\"16696652\",\"availability\":\"AVAILABLE\"}," +
+            "\"item\":{\"tcin\":\"16696652\",\"bundle_components\":{},\"dpci\":\"058-34-0436\"," +
+            "\"upc\":\"848447000135\",\"product_description\":{\"title\":\"Beats Solo 2 Wireless - Black\"," +
+            "\"bullet_description\":[\"<B>Battery:</B> Rechargeable lithium ion\",\"<B>Connection Type:</B> Wireless\"]}," +
+            "\"buy_url\":\"https://www.target.com/p/beats-solo-2-wireless-black/-/A-16696652\"," +
+            "\"enrichment\":{\"images\":[{\"base_url\":\"https://target.scene7.com/is/image/Target/\"," +
+            "\"primary\":\"GUEST_0c4a1d11-c2c3-4b0b-9a76-ee8ed1a4f6e1\"}]}," +
+            "\"package_dimensions\":{\"weight\":\"1.5\",\"weight_unit_of_measure\":\"POUND\"}}," +
+            "\"circle_offers\":{\"universal_offer_exists\":false}}}";
+
+    private ObjectReader redSkyReader;
+    private ObjectWriter responseWriter;
+    private byte[] redSkyResponse;
+    private ProductResponse productResponse;
+
+    @Setup
+    public void initialize() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        redSkyReader = mapper.readerFor(RedSkyResponse.class);
+        responseWriter = mapper.writerFor(ProductResponse.class);
+        redSkyResponse = REDSKY_RESPONSE.getBytes(StandardCharsets.UTF_8);
+
+        productResponse = new ProductResponse(
+                new ArrayList<>(Arrays.asList(new Product(16696652L, "Beats Solo 2 Wireless - Black", new Price(26.0F, "USD")))),
+                new ArrayList<>(Arrays.asList(new ProductError(ProductError.PRICING, "Product 16696652 not found"))));
+    }
+
+    @Benchmark
+    public RedSkyResponse readRedSkyResponse() throws IOException {
+        return redSkyReader.readValue(redSkyResponse);
+    }
+
+    @Benchmark
+    public byte[] writeProductResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(productResponse);
+    }
+}
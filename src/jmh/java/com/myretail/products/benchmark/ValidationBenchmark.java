@@ -0,0 +1,100 @@
+package com.myretail.products.benchmark;
+
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.configuration.BatchConfiguration;
+import com.myretail.products.exception.BadRequestException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.CurrencyCode;
+import com.myretail.products.model.response.Price;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.repository.CurrencyCodes;
+import com.myretail.products.validation.RequestPredicates;
+import com.myretail.products.validation.RequestValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.Proxy;
+import java.util.Currency;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Measures the validation of request inputs, for valid inputs as well as for invalid ones (which
+ * pay for creating an exception).
+ */
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    private RequestValidator validator;
+    private Product request = new Product(null, "Beats Solo 2 Wireless - Black", new Price(39.99F, "usd"));
+    private List<Long> batch = LongStream.range(16696652L, 16696652L + 100).boxed().collect(Collectors.toList());
+
+    @Setup
+    public void initialize() {
+        // Only findAll is used to load the registry's snapshot of currency codes
+        List<CurrencyCode> codes = Currency.getAvailableCurrencies()
+                .stream()
+                .map(currency -> new CurrencyCode(currency.getCurrencyCode()))
+                .collect(Collectors.toList());
+        CurrencyCodes repository = (CurrencyCodes) Proxy.newProxyInstance(
+                CurrencyCodes.class.getClassLoader(),
+                new Class<?>[]{CurrencyCodes.class},
+                (proxy, method, args) -> {
+                    if ("findAll".equals(method.getName())) return codes;
+                    throw new UnsupportedOperationException(method.getName());
+                });
+
+        validator = new RequestValidator(new CurrencyCodeRegistry(repository), new BatchConfiguration(100), new StageTimers(new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    public boolean productIdPredicate() {
+        return RequestPredicates.isValidProductId().test(16696652L);
+    }
+
+    @Benchmark
+    public boolean pricePredicate() {
+        return RequestPredicates.isValidPriceValue().test(request);
+    }
+
+    @Benchmark
+    public Product validateProductId() {
+        validator.validate(16696652L);
+        return request;
+    }
+
+    @Benchmark
+    public Product validateProduct() {
+        validator.validate(request);
+        return request;
+    }
+
+    @Benchmark
+    public List<Long> validateBatch() {
+        validator.validate(batch);
+        return batch;
+    }
+
+    @Benchmark
+    public BadRequestException validateInvalidProductId() {
+        try {
+            validator.validate(-1L);
+            return null;
+        } catch (BadRequestException ex) {
+            return ex;
+        }
+    }
+
+    @Benchmark
+    public BadRequestException validateUnknownCurrency() {
+        try {
+            validator.validate(new Product(null, null, new Price(39.99F, "zzz")));
+            return null;
+        } catch (BadRequestException ex) {
+            return ex;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.myretail.products.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.myretail.products.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the service (with its embedded MongoDB) against a local stand-in for RedSky, drives a mix
+ * of product reads and price updates at a target rate, and writes throughput, latency percentiles
+ * and error rates to a JSON report. Given several rates, it measures them in turn and reports the
+ * highest one served within the service level ({@code loadtest.slo.*}). Reports of different
+ * builds can be diffed as long as they were run with the same settings on the same machine. See
+ * {@link LoadTestSettings} for the settings.
+ *
+ * The load generator runs in the same JVM as the service, so the service gets less CPU than it
+ * would on its own; that's the same for every run and doesn't get in the way of comparing them.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (RedSkyStub redSky = RedSkyStub.start(settings);
+             ConfigurableApplicationContext application = start(arguments(settings, redSky, args))) {
+            String baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+            Workload workload = new Workload(settings, baseUrl);
+
+            System.out.printf("Seeding prices of %d products%n", settings.getProducts());
+            workload.seed();
+
+            double firstRate = settings.getRates().get(0);
+            System.out.printf("Warming up at %.0f requests/s for %s%n", firstRate, settings.getWarmup());
+            workload.run(firstRate, settings.getWarmup());
+
+            // Rates are measured in turn until one of them can't be sustained, since the ones
+            // above it won't be either
+            List<Map<String, Object>> steps = new ArrayList<>();
+            Double sustained = null;
+            for (double rate : settings.getRates()) {
+                System.out.printf("Measuring at %.0f requests/s for %s%n", rate, settings.getDuration());
+                long redSkyRequests = redSky.getRequests();
+                long redSkyErrors = redSky.getErrors();
+                Workload.Results results = workload.run(rate, settings.getDuration());
+
+                Map<String, Object> stub = new LinkedHashMap<>();
+                stub.put("requests", redSky.getRequests() - redSkyRequests);
+                stub.put("errors", redSky.getErrors() - redSkyErrors);
+
+                boolean sustainable = results.meets(settings.getSloP99Latency(), settings.getSloErrorRate());
+                Map<String, Object> step = new LinkedHashMap<>();
+                step.put("rate", rate);
+                step.put("sustainable", sustainable);
+                step.put("results", results.describe());
+                step.put("redsky", stub);
+                steps.add(step);
+
+                if (!sustainable) break;
+                sustained = rate;
+            }
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("settings", settings.describe());
+            report.put("steps", steps);
+            report.put("max_sustainable_rate", sustained);
+
+            File output = new File(settings.getOutput());
+            output.getAbsoluteFile().getParentFile().mkdirs();
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            mapper.writeValue(output, report);
+
+            System.out.println(mapper.writeValueAsString(report));
+            System.out.printf("Report written to %s%n", output.getAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String[] arguments) {
+        return new SpringApplicationBuilder(Application.class)
+                .environment(Application.environment(arguments))
+                .run(arguments);
+    }
+
+    private static String[] arguments(LoadTestSettings settings, RedSkyStub redSky, String[] args) {
+        // Given as arguments rather than default properties, so they take precedence over the
+        // application's own properties
+        List<String> arguments = new ArrayList<>();
+        arguments.add("--server.port=0");
+        arguments.add("--redsky.url=" + redSky.url());
+        arguments.add("--redsky.batch.url=" + redSky.batchUrl());
+        arguments.add("--logging.level.com.myretail.products=ERROR");
+        for (String property : settings.applicationProperties()) {
+            arguments.add("--" + property);
+        }
+        arguments.addAll(Arrays.asList(args));
+
+        return arguments.toArray(new String[0]);
+    }
+}
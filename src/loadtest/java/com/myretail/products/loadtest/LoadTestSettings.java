@@ -0,0 +1,164 @@
+package com.myretail.products.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a load test, read from the "loadtest.*" system properties (which the Gradle task
+ * forwards from "-Ploadtest.*" project properties). Properties prefixed with "loadtest.app." are
+ * passed on to the application, i.e. "-Ploadtest.app.redsky.cache.enabled=false".
+ */
+public class LoadTestSettings {
+    private static final String PREFIX = "loadtest.";
+    private static final String APPLICATION_PREFIX = PREFIX + "app.";
+
+    // Workload
+    private List<Double> rates = new ArrayList<>();
+    private Duration warmup;
+    private Duration duration;
+    private double putRatio;
+    private int products;
+    private int maxInFlight;
+
+    // Service level a rate is sustainable at
+    private Duration sloP99Latency;
+    private double sloErrorRate;
+
+    // Stub RedSky
+    private Duration redSkyMedianLatency;
+    private Duration redSkyP99Latency;
+    private double redSkyErrorRate;
+    private int redSkyPayloadBytes;
+
+    private String output;
+    private Map<String, String> application = new LinkedHashMap<>();
+
+    public static LoadTestSettings fromSystemProperties() {
+        Properties properties = System.getProperties();
+        LoadTestSettings settings = new LoadTestSettings();
+
+        for (String rate : properties.getProperty(PREFIX + "rate", "200").split(",")) {
+            settings.rates.add(Double.parseDouble(rate.trim()));
+        }
+        settings.warmup = duration(properties.getProperty(PREFIX + "warmup", "15s"));
+        settings.duration = duration(properties.getProperty(PREFIX + "duration", "60s"));
+        settings.putRatio = Double.parseDouble(properties.getProperty(PREFIX + "put-ratio", "0.1"));
+        settings.products = Integer.parseInt(properties.getProperty(PREFIX + "products", "1000"));
+        settings.maxInFlight = Integer.parseInt(properties.getProperty(PREFIX + "max-in-flight", "2000"));
+
+        settings.sloP99Latency = duration(properties.getProperty(PREFIX + "slo.p99-latency", "500ms"));
+        settings.sloErrorRate = Double.parseDouble(properties.getProperty(PREFIX + "slo.error-rate", "0.01"));
+
+        settings.redSkyMedianLatency = duration(properties.getProperty(PREFIX + "redsky.median-latency", "20ms"));
+        settings.redSkyP99Latency = duration(properties.getProperty(PREFIX + "redsky.p99-latency", "150ms"));
+        settings.redSkyErrorRate = Double.parseDouble(properties.getProperty(PREFIX + "redsky.error-rate", "0.01"));
+        settings.redSkyPayloadBytes = Integer.parseInt(properties.getProperty(PREFIX + "redsky.payload-bytes", "20000"));
+
+        settings.output = properties.getProperty(PREFIX + "output", "build/reports/loadtest/results.json");
+
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(APPLICATION_PREFIX)) {
+                settings.application.put(name.substring(APPLICATION_PREFIX.length()), properties.getProperty(name));
+            }
+        }
+
+        return settings;
+    }
+
+    /**
+     * @return The settings as they are written to the report, so that reports of runs with
+     * different settings aren't mistaken for one another
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("rate", rates);
+        description.put("warmup", warmup.toString());
+        description.put("duration", duration.toString());
+        description.put("put_ratio", putRatio);
+        description.put("products", products);
+        description.put("max_in_flight", maxInFlight);
+        description.put("slo_p99_latency", sloP99Latency.toString());
+        description.put("slo_error_rate", sloErrorRate);
+        description.put("redsky_median_latency", redSkyMedianLatency.toString());
+        description.put("redsky_p99_latency", redSkyP99Latency.toString());
+        description.put("redsky_error_rate", redSkyErrorRate);
+        description.put("redsky_payload_bytes", redSkyPayloadBytes);
+        description.put("application", application);
+        return description;
+    }
+
+    /**
+     * @return The application properties given to the load test, as "name=value" pairs
+     */
+    public String[] applicationProperties() {
+        List<String> pairs = new ArrayList<>();
+        application.forEach((name, value) -> pairs.add(name + "=" + value));
+        return pairs.toArray(new String[0]);
+    }
+
+    /**
+     * @return The request rates to measure, in order; "-Ploadtest.rate=500,1000,2000" steps
+     * through several rates to find the highest one the service sustains
+     */
+    public List<Double> getRates() {
+        return rates;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public double getPutRatio() {
+        return putRatio;
+    }
+
+    public int getProducts() {
+        return products;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public Duration getSloP99Latency() {
+        return sloP99Latency;
+    }
+
+    public double getSloErrorRate() {
+        return sloErrorRate;
+    }
+
+    public Duration getRedSkyMedianLatency() {
+        return redSkyMedianLatency;
+    }
+
+    public Duration getRedSkyP99Latency() {
+        return redSkyP99Latency;
+    }
+
+    public double getRedSkyErrorRate() {
+        return redSkyErrorRate;
+    }
+
+    public int getRedSkyPayloadBytes() {
+        return redSkyPayloadBytes;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+
+    private static Duration duration(String value) {
+        return DurationStyle.detectAndParse(value);
+    }
+}
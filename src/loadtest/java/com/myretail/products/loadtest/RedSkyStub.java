@@ -0,0 +1,156 @@
+package com.myretail.products.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for RedSky, serving a product for any tcin, on its own or in batches of the
+ * tcins in the query ({@code ?tcins=1,2,3}). Response times follow a log-normal
+ * distribution fitted to the configured median and 99th percentile (which is what upstream
+ * latencies tend to look like), a share of the requests fail with a 500, and the product is
+ * padded with fields the service ignores up to the configured payload size.
+ */
+public class RedSkyStub implements AutoCloseable {
+    // Standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.326;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private double medianNanos;
+    private double sigma;
+    private double errorRate;
+    private String before;
+    private String after;
+    private LongAdder requests = new LongAdder();
+    private LongAdder errors = new LongAdder();
+
+    private RedSkyStub(LoadTestSettings settings) throws IOException {
+        this.medianNanos = settings.getRedSkyMedianLatency().toNanos();
+        this.sigma = Math.log((double) settings.getRedSkyP99Latency().toNanos() / Math.max(1, this.medianNanos)) / Z_99;
+        this.errorRate = settings.getRedSkyErrorRate();
+
+        // The item is in the middle of the padding, as it is in RedSky responses
+        String padding = padding(settings.getRedSkyPayloadBytes() / 2);
+        this.before = "{\"available_to_promise_network\":{" + padding + "},\"item\":{\"tcin\":\"";
+        this.after = "\",\"product_description\":{\"title\":\"Load Test Product\"}},\"enrichment\":{" + padding + "}}";
+
+        // Requests are sleeping most of the time, so the pool is as large as the concurrency
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "redsky-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", exchange -> this.handle(exchange, this::product));
+        this.server.createContext("/v2/pdp/tcins", exchange -> this.handle(exchange, this::products));
+        this.server.start();
+    }
+
+    public static RedSkyStub start(LoadTestSettings settings) throws IOException {
+        return new RedSkyStub(settings);
+    }
+
+    /**
+     * @return The URL of the stub, to be used as the RedSky URL of the service
+     */
+    public String url() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/v2/pdp/tcin";
+    }
+
+    /**
+     * @return The URL of the stub's batch endpoint, to be used as the RedSky batch URL of the service
+     */
+    public String batchUrl() {
+        return "http://localhost:" + this.server.getAddress().getPort() + "/v2/pdp/tcins";
+    }
+
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    public long getErrors() {
+        return this.errors.sum();
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange, Body response) throws IOException {
+        this.requests.increment();
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            TimeUnit.NANOSECONDS.sleep((long) (this.medianNanos * Math.exp(this.sigma * random.nextGaussian())));
+
+            if (random.nextDouble() < this.errorRate) {
+                this.errors.increment();
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            byte[] body = response.of(exchange).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String product(HttpExchange exchange) {
+        // The tcin is the last segment of the path
+        String path = exchange.getRequestURI().getPath();
+        String tcin = path.substring(path.lastIndexOf('/') + 1);
+        return "{\"product\":" + this.before + tcin + this.after + "}";
+    }
+
+    private String products(HttpExchange exchange) throws IOException {
+        StringJoiner products = new StringJoiner(",", "{\"products\":[", "]}");
+        String query = exchange.getRequestURI().getRawQuery();
+        for (String parameter : null == query ? new String[0] : query.split("&")) {
+            if (!parameter.startsWith("tcins=")) continue;
+            for (String tcin : URLDecoder.decode(parameter.substring("tcins=".length()), "UTF-8").split(",")) {
+                products.add(this.before + tcin + this.after);
+            }
+        }
+        return products.toString();
+    }
+
+    private static String padding(int bytes) {
+        StringBuilder padding = new StringBuilder("\"images\":[");
+        for (int i = 0; padding.length() < bytes; i++) {
+            if (i > 0) padding.append(',');
+            padding.append("{\"base_url\":\"https://target.scene7.com/is/image/Target/\",\"primary\":\"GUEST_")
+                    .append(i)
+                    .append("\"}");
+        }
+        return padding.append(']').toString();
+    }
+
+    private interface Body {
+        String of(HttpExchange exchange) throws IOException;
+    }
+}
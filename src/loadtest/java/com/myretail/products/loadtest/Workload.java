@@ -0,0 +1,271 @@
+package com.myretail.products.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.ipc.netty.resources.PoolResources;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model workload: requests are sent at the target rate (with exponentially distributed gaps,
+ * as independent clients would) whether or not earlier requests have completed, so a slow service
+ * builds up a backlog instead of slowing the load down. Latencies are measured from the time a
+ * request was due to be sent rather than from when it was actually sent, so that a stalled sender
+ * doesn't hide the stall from the results.
+ */
+public class Workload {
+    private static final long FIRST_PRODUCT_ID = 90_000_000L;
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(1);
+    private static final int SEED_CONCURRENCY = 32;
+    private static final int SEED_RETRIES = 3;
+
+    private LoadTestSettings settings;
+    private WebClient client;
+    private AtomicInteger inFlight = new AtomicInteger();
+
+    public Workload(LoadTestSettings settings, String baseUrl) {
+        this.settings = settings;
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(options -> options
+                .poolResources(PoolResources.fixed("loadtest", settings.getMaxInFlight())));
+        this.client = WebClient.builder().baseUrl(baseUrl).clientConnector(connector).build();
+    }
+
+    /**
+     * Saves a price for every product of the workload with a single bulk ingestion request, so
+     * that reads find a price for every product. The reactive stack has no bulk ingestion, so
+     * there the prices are saved one request per product instead.
+     */
+    public void seed() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < settings.getProducts(); i++) {
+            lines.append("{\"id\":").append(FIRST_PRODUCT_ID + i)
+                    .append(",\"current_price\":{\"value\":19.99,\"currency_code\":\"USD\"}}\n");
+        }
+
+        this.client.post()
+                .uri("/products/prices")
+                .contentType(MediaType.valueOf("application/x-ndjson"))
+                .syncBody(lines.toString())
+                .retrieve()
+                .bodyToMono(String.class)
+                .onErrorResume(
+                        ex -> ex instanceof WebClientResponseException
+                                && HttpStatus.METHOD_NOT_ALLOWED == ((WebClientResponseException) ex).getStatusCode(),
+                        ex -> Flux.range(0, settings.getProducts())
+                                .flatMap(i -> this.client.put()
+                                        .uri("/products/{id}", FIRST_PRODUCT_ID + i)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .syncBody("{\"current_price\":{\"value\":19.99,\"currency_code\":\"USD\"}}")
+                                        .retrieve()
+                                        .bodyToMono(String.class)
+                                        // Updates look the product up in RedSky, which fails now and then
+                                        .retry(SEED_RETRIES), SEED_CONCURRENCY)
+                                .then(Mono.empty()))
+                .block(Duration.ofMinutes(1));
+    }
+
+    /**
+     * Sends requests at the given rate for the given duration, then waits for the requests still
+     * in flight to complete.
+     *
+     * @param rate     The number of requests to send per second
+     * @param duration How long to send requests for
+     * @return The results of the requests
+     */
+    public Results run(double rate, Duration duration) {
+        Results results = new Results();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double meanGap = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long due = start;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            if (due > now) {
+                LockSupport.parkNanos(due - now);
+                continue;
+            }
+
+            long scheduled = due;
+            due += (long) (-Math.log(1 - random.nextDouble()) * meanGap);
+
+            boolean put = random.nextDouble() < settings.getPutRatio();
+            Operation operation = put ? results.puts : results.gets;
+            if (inFlight.get() >= settings.getMaxInFlight()) {
+                operation.dropped.increment();
+                continue;
+            }
+
+            long productId = FIRST_PRODUCT_ID + random.nextInt(settings.getProducts());
+            this.send(put, productId, results).subscribe(
+                    status -> operation.complete(scheduled, status),
+                    error -> operation.fail(scheduled));
+        }
+        results.elapsed = System.nanoTime() - start;
+
+        // Give the requests still in flight a chance to complete before reporting
+        long drained = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drained) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        return results;
+    }
+
+    private Mono<HttpStatus> send(boolean put, long productId, Results results) {
+        WebClient.RequestHeadersSpec<?> request = put
+                ? this.client.put()
+                        .uri("/products/{id}", productId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .syncBody("{\"current_price\":{\"value\":" + (10 + productId % 90) + ".99,\"currency_code\":\"USD\"}}")
+                : this.client.get()
+                        .uri("/products/{id}", productId)
+                        .accept(MediaType.APPLICATION_JSON);
+
+        return request.exchange()
+                .flatMap(response -> response.bodyToMono(Void.class).then(Mono.just(response.statusCode())))
+                .doOnSubscribe(subscription -> results.peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    public static class Results {
+        private Operation gets = new Operation();
+        private Operation puts = new Operation();
+        private AtomicInteger peakInFlight = new AtomicInteger();
+        private long elapsed;
+
+        /**
+         * @param p99Latency The highest acceptable 99th percentile latency
+         * @param errorRate  The highest acceptable error rate
+         * @return Whether both reads and updates were served within the given service level
+         */
+        public boolean meets(Duration p99Latency, double errorRate) {
+            return gets.meets(p99Latency, errorRate) && puts.meets(p99Latency, errorRate);
+        }
+
+        /**
+         * @return The results in the shape they are reported in
+         */
+        public Map<String, Object> describe() {
+            double seconds = elapsed / 1e9;
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("elapsed_seconds", round(seconds));
+            description.put("concurrency", concurrency(seconds));
+            description.put("get", gets.describe(seconds));
+            description.put("put", puts.describe(seconds));
+            return description;
+        }
+
+        private Map<String, Object> concurrency(double seconds) {
+            // Little's law: the mean number of requests in flight is the rate they complete at
+            // times the mean time they take
+            double busy = (gets.totalLatency.sum() + puts.totalLatency.sum()) / 1e6;
+
+            Map<String, Object> concurrency = new LinkedHashMap<>();
+            concurrency.put("mean", seconds == 0 ? 0 : round(busy / seconds));
+            concurrency.put("max", peakInFlight.get());
+            return concurrency;
+        }
+    }
+
+    private static class Operation {
+        private Recorder latencies = new Recorder(HIGHEST_LATENCY, 3);
+        private LongAdder successes = new LongAdder();
+        private LongAdder clientErrors = new LongAdder();
+        private LongAdder serverErrors = new LongAdder();
+        private LongAdder failures = new LongAdder();
+        private LongAdder dropped = new LongAdder();
+        private LongAdder totalLatency = new LongAdder();
+        private Histogram histogram;
+
+        private void complete(long scheduled, HttpStatus status) {
+            this.record(scheduled);
+            if (status.is4xxClientError()) clientErrors.increment();
+            else if (status.is5xxServerError()) serverErrors.increment();
+            else successes.increment();
+        }
+
+        private void fail(long scheduled) {
+            this.record(scheduled);
+            failures.increment();
+        }
+
+        private void record(long scheduled) {
+            long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled);
+            latencies.recordValue(Math.min(latency, HIGHEST_LATENCY));
+            totalLatency.add(latency);
+        }
+
+        private Histogram histogram() {
+            // The recorder hands out the values recorded since it was last asked, so it's only
+            // asked once
+            if (null == histogram) histogram = latencies.getIntervalHistogram();
+            return histogram;
+        }
+
+        private long completed() {
+            return successes.sum() + clientErrors.sum() + serverErrors.sum() + failures.sum();
+        }
+
+        private double errorRate() {
+            long completed = completed();
+            return completed + dropped.sum() == 0 ? 0 : (double) (completed - successes.sum() + dropped.sum()) / (completed + dropped.sum());
+        }
+
+        private boolean meets(Duration p99Latency, double errorRate) {
+            return histogram().getValueAtPercentile(99) <= TimeUnit.NANOSECONDS.toMicros(p99Latency.toNanos())
+                    && errorRate() <= errorRate;
+        }
+
+        private Map<String, Object> describe(double seconds) {
+            Histogram histogram = histogram();
+            long completed = completed();
+
+            Map<String, Object> errors = new LinkedHashMap<>();
+            errors.put("client", clientErrors.sum());
+            errors.put("server", serverErrors.sum());
+            errors.put("io", failures.sum());
+            errors.put("dropped", dropped.sum());
+            errors.put("rate", round(errorRate()));
+
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+            latency.put("p90", millis(histogram.getValueAtPercentile(90)));
+            latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+            latency.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            latency.put("max", millis(histogram.getMaxValue()));
+            latency.put("mean", millis(histogram.getMean()));
+
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("requests", completed);
+            description.put("throughput", round(successes.sum() / seconds));
+            description.put("errors", errors);
+            description.put("latency_ms", latency);
+            return description;
+        }
+    }
+
+    private static double millis(double micros) {
+        return round(micros / 1_000);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1_000) / 1_000.0;
+    }
+}
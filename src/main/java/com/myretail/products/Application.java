@@ -2,11 +2,36 @@ package com.myretail.products;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.context.support.StandardServletEnvironment;
 
+@EnableScheduling
 @SpringBootApplication
 public class Application {
 
 	public static void main(String[] args) {
-		SpringApplication.run(Application.class, args);
+		SpringApplication application = new SpringApplication(Application.class);
+		application.setEnvironment(environment(args));
+		application.run(args);
+	}
+
+	/**
+	 * Creates the environment of the web application type the active profiles ask for. Spring Boot
+	 * 2.0 creates a servlet environment before it reads the web application type off the reactive
+	 * profile, which lets the servlet-only actuator beans in and keeps the reactive server from
+	 * starting.
+	 *
+	 * @param args The command line arguments, which may activate profiles
+	 * @return An environment for the reactive stack if the reactive profile is active, otherwise
+	 * one for the servlet stack
+	 */
+	public static ConfigurableEnvironment environment(String... args) {
+		StandardEnvironment profiles = new StandardEnvironment();
+		profiles.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+
+		return profiles.acceptsProfiles("reactive") ? new StandardEnvironment() : new StandardServletEnvironment();
 	}
 }
@@ -0,0 +1,74 @@
+package com.myretail.products.cache;
+
+import com.myretail.products.model.pricing.CurrencyCode;
+import com.myretail.products.repository.CurrencyCodes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class CurrencyCodeRegistry extends AbstractMongoEventListener<CurrencyCode> {
+    private CurrencyCodes currencyCodes;
+    private volatile Set<String> codes;
+
+    public CurrencyCodeRegistry(CurrencyCodes currencyCodes) {
+        this.currencyCodes = currencyCodes;
+    }
+
+    /**
+     * Checks if a currency code is known. The check is served from an immutable in-memory snapshot
+     * of the currency codes repository, so it doesn't require any locking or round trip to the
+     * repository (other than loading the snapshot if it couldn't be loaded on startup, which the
+     * reactive mode doesn't start without).
+     *
+     * @param code The upper case currency code
+     * @return True if the currency code is known, false otherwise
+     */
+    public boolean contains(String code) {
+        Set<String> snapshot = this.codes;
+        if (null == snapshot) snapshot = this.refresh();
+
+        return snapshot.contains(code);
+    }
+
+    /**
+     * Loads a new snapshot of the currency codes from the repository and swaps it in place of the
+     * current one. This happens periodically and whenever currency codes are saved or deleted
+     * through this service.
+     *
+     * @return The new snapshot of currency codes
+     */
+    @Scheduled(
+            initialDelayString = "${currency-codes.refresh-interval:PT5M}",
+            fixedDelayString = "${currency-codes.refresh-interval:PT5M}")
+    public Set<String> refresh() {
+        Set<String> snapshot = Collections.unmodifiableSet(this.currencyCodes.findAll()
+                .stream()
+                .map(CurrencyCode::getCode)
+                .collect(Collectors.toSet()));
+        log.debug("Refreshed currency codes: {}", snapshot);
+
+        this.codes = snapshot;
+        return snapshot;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<CurrencyCode> event) {
+        log.trace("Currency code saved: [{}]", event.getSource());
+        this.refresh();
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<CurrencyCode> event) {
+        log.trace("Currency code deleted: [{}]", event.getSource());
+        this.refresh();
+    }
+}
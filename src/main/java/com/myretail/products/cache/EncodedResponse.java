@@ -0,0 +1,30 @@
+package com.myretail.products.cache;
+
+import com.myretail.products.construction.EntityTagFactory;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EncodedResponse {
+    // The JSON encoded response
+    private byte[] body;
+
+    // The gzip compressed body, null when the body isn't worth compressing
+    private byte[] compressedBody;
+
+    // Strong entity tag of the body (quoted)
+    private String etag;
+
+    /**
+     * @return The strong entity tag of the compressed body, which is a different representation
+     * of the response than the body and so can't share its entity tag
+     */
+    public String getCompressedEtag() {
+        return EntityTagFactory.compressed(etag);
+    }
+
+    int weight() {
+        return body.length + (null == compressedBody ? 0 : compressedBody.length) + etag.length();
+    }
+}
@@ -0,0 +1,328 @@
+package com.myretail.products.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.model.pricing.ProductPrice;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class ProductPriceCache {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private boolean enabled;
+    private Ticker ticker;
+    private long startTime;
+    private int timeToLive;
+    private int capacity;
+    private int mask;
+
+    // Entries are spread over parallel arrays indexed by slot, so the whole cache is a handful of
+    // objects no matter how many prices it holds. Product ids are never negative, so the smallest
+    // long marks an empty slot
+    private long[] productIds;
+    private int[] prices;
+    private short[] currencies;
+    private int[] writeTimes;
+    private int size;
+    private int lastPurge = -1;
+    private StampedLock lock = new StampedLock();
+
+    // Currency codes are stored as their ordinal in this append only list
+    private volatile String[] currencyCodes = new String[0];
+    private Map<String, Short> currencyOrdinals = new ConcurrentHashMap<>();
+
+    private LongAdder hits = new LongAdder();
+    private LongAdder misses = new LongAdder();
+    private LongAdder rejections = new LongAdder();
+
+    /**
+     * Near cache of product prices, backed by primitive arrays in an open addressing hash table
+     * rather than by maps of boxed objects. A price takes 18 bytes of slots (a long id, the bits of
+     * the float price, a currency ordinal and the time it was written), so millions of prices fit
+     * in a few tens of MB that the garbage collector never has to trace through.
+     *
+     * The table is allocated up front for the configured capacity and never grows. Once it's full,
+     * expired prices are purged to make room, and new prices aren't cached if none have expired.
+     * Prices expire so that updates made by other instances of the service are eventually picked up.
+     *
+     * @param configuration The capacity and expiration settings of the cache
+     * @param registry      The registry to publish footprint and hit metrics to
+     */
+    @Autowired
+    public ProductPriceCache(PriceCacheConfiguration configuration, MeterRegistry registry) {
+        this(configuration, registry, Ticker.systemTicker());
+    }
+
+    ProductPriceCache(PriceCacheConfiguration configuration, MeterRegistry registry, Ticker ticker) {
+        this.enabled = configuration.isEnabled();
+        this.ticker = ticker;
+        this.startTime = ticker.read();
+        this.timeToLive = (int) Math.min(Integer.MAX_VALUE, configuration.getTimeToLive().getSeconds());
+
+        // Keep the table at most 3/4 full so that probe sequences stay short
+        long minimumSlots = Math.max(2L, configuration.getCapacity() * 4L / 3 + 1);
+        int slots = this.enabled ? (int) Math.min(1 << 30, Long.highestOneBit(minimumSlots - 1) << 1) : 0;
+        this.capacity = this.enabled ? (int) Math.min(configuration.getCapacity(), slots * 3L / 4) : 0;
+        this.mask = slots - 1;
+        this.productIds = new long[slots];
+        this.prices = new int[slots];
+        this.currencies = new short[slots];
+        this.writeTimes = new int[slots];
+        Arrays.fill(this.productIds, EMPTY);
+
+        Gauge.builder("prices.cache.size", this, cache -> cache.size)
+                .register(registry);
+        Gauge.builder("prices.cache.capacity", this, cache -> cache.capacity)
+                .register(registry);
+        Gauge.builder("prices.cache.footprint", this, ProductPriceCache::footprint)
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("prices.cache.requests", this.hits, LongAdder::doubleValue)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("prices.cache.requests", this.misses, LongAdder::doubleValue)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("prices.cache.rejections", this.rejections, LongAdder::doubleValue)
+                .register(registry);
+    }
+
+    /**
+     * Reads a price from the loader and fills the cache with it, for callers that already found
+     * it missing from the cache (so the miss isn't counted twice). Products without a price are
+     * not cached, so a price saved elsewhere shows up as soon as it exists.
+     *
+     * @param productId The identifier of the product
+     * @param loader    The function that reads the price
+     * @return An optional with the product's price, empty if the product has no price
+     */
+    public Optional<ProductPrice> load(Long productId, Function<Long, Optional<ProductPrice>> loader) {
+        Optional<ProductPrice> loaded = loader.apply(productId);
+        loaded.ifPresent(this::fill);
+        return loaded;
+    }
+
+    /**
+     * Reads a price from the cache without loading it upon a miss.
+     *
+     * @param productId The identifier of the product
+     * @return The cached price, or null if the price isn't cached (or has expired)
+     */
+    public ProductPrice getIfPresent(long productId) {
+        ProductPrice price = this.read(productId);
+        if (null == price) this.misses.increment();
+        else this.hits.increment();
+        return price;
+    }
+
+    /**
+     * Reads a price from the cache like {@link #getIfPresent(long)}, but without recording a hit
+     * or a miss, for callers that go on to read the price again upon a miss.
+     *
+     * @param productId The identifier of the product
+     * @return The cached price, or null if the price isn't cached (or has expired)
+     */
+    public ProductPrice getIfPresentQuietly(long productId) {
+        return this.read(productId);
+    }
+
+    private ProductPrice read(long productId) {
+        if (!this.enabled || productId < 0) return null;
+
+        // Reads don't take the lock, they validate afterwards that no write happened in between
+        // and only retry under the read lock if one did
+        long stamp = this.lock.tryOptimisticRead();
+        int slot = this.find(productId);
+        int price = slot < 0 ? 0 : this.prices[slot];
+        short currency = slot < 0 ? 0 : this.currencies[slot];
+        int writeTime = slot < 0 ? 0 : this.writeTimes[slot];
+        if (!this.lock.validate(stamp)) {
+            stamp = this.lock.readLock();
+            try {
+                slot = this.find(productId);
+                price = slot < 0 ? 0 : this.prices[slot];
+                currency = slot < 0 ? 0 : this.currencies[slot];
+                writeTime = slot < 0 ? 0 : this.writeTimes[slot];
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+
+        if (slot < 0 || this.isExpired(writeTime, this.now())) return null;
+
+        return new ProductPrice(productId, Float.intBitsToFloat(price), this.currencyCodes[currency]);
+    }
+
+    /**
+     * Caches a price that was just written, replacing the cached price of the product if there
+     * is one.
+     *
+     * @param price The price to cache
+     */
+    public void put(ProductPrice price) {
+        this.put(price, true);
+    }
+
+    /**
+     * Caches a price read from the repository, unless a price is already cached for the product.
+     * A read can return a price that a write has since replaced, and the price that write cached
+     * mustn't be overwritten with the stale one.
+     *
+     * @param price The price to cache
+     */
+    public void fill(ProductPrice price) {
+        this.put(price, false);
+    }
+
+    private void put(ProductPrice price, boolean replace) {
+        if (!this.enabled || null == price || null == price.getProductId() || price.getProductId() < 0) return;
+
+        long productId = price.getProductId();
+        short currency = this.ordinal(price.getCurrency());
+        int now = this.now();
+
+        long stamp = this.lock.writeLock();
+        try {
+            // Walk the whole probe sequence in case the product is cached past an expired slot,
+            // remembering the first expired slot to reuse if it isn't
+            int expired = -1;
+            int slot = this.spread(productId);
+            while (EMPTY != this.productIds[slot] && productId != this.productIds[slot]) {
+                if (expired < 0 && this.isExpired(this.writeTimes[slot], now)) expired = slot;
+                slot = (slot + 1) & this.mask;
+            }
+
+            if (EMPTY != this.productIds[slot]) {
+                if (!replace && !this.isExpired(this.writeTimes[slot], now)) return;
+            } else {
+                if (expired >= 0) {
+                    slot = expired;
+                } else if (this.size >= this.capacity && !this.purgeExpired(now)) {
+                    this.rejections.increment();
+                    return;
+                } else {
+                    // The purge may have moved entries around, so the slot is looked up again
+                    slot = this.spread(productId);
+                    while (EMPTY != this.productIds[slot]) slot = (slot + 1) & this.mask;
+                    this.size++;
+                }
+            }
+
+            this.productIds[slot] = productId;
+            // The float's bits are kept as is, so the cached price is exactly the saved one
+            this.prices[slot] = Float.floatToRawIntBits(price.getPrice());
+            this.currencies[slot] = currency;
+            this.writeTimes[slot] = now;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    private boolean purgeExpired(int now) {
+        // Entries expire with a granularity of a second, so there's no point purging more often
+        // (which also keeps a cache full of live entries from purging on every write)
+        if (now == this.lastPurge) return false;
+        this.lastPurge = now;
+
+        // Expired entries are deleted in place. The scan starts and ends at an empty slot (there
+        // always is one below capacity), so no probe sequence wraps around the end of the scan.
+        // A slot is scanned again after a deletion, since the deletion shifts another entry into it
+        int start = 0;
+        while (EMPTY != this.productIds[start]) start++;
+        int slot = (start + 1) & this.mask;
+        while (slot != start) {
+            if (EMPTY != this.productIds[slot] && this.isExpired(this.writeTimes[slot], now)) {
+                this.delete(slot);
+            } else {
+                slot = (slot + 1) & this.mask;
+            }
+        }
+
+        log.debug("Purged expired prices, {} prices remain cached", this.size);
+        return this.size < this.capacity;
+    }
+
+    private void delete(int slot) {
+        // The entries following the deleted one are shifted back into the gap it leaves, unless
+        // that would move them before their home slot, so that no probe sequence is cut short
+        int gap = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & this.mask;
+            long id = this.productIds[next];
+            if (EMPTY == id) break;
+            if (((next - this.spread(id)) & this.mask) < ((next - gap) & this.mask)) continue;
+
+            this.productIds[gap] = id;
+            this.prices[gap] = this.prices[next];
+            this.currencies[gap] = this.currencies[next];
+            this.writeTimes[gap] = this.writeTimes[next];
+            gap = next;
+        }
+        this.productIds[gap] = EMPTY;
+        this.size--;
+    }
+
+    private int find(long productId) {
+        int slot = this.spread(productId);
+        long[] ids = this.productIds;
+        // A torn optimistic read could probe forever, so the probe is bounded by the table size
+        for (int probes = 0; probes < ids.length; probes++) {
+            long id = ids[slot];
+            if (productId == id) return slot;
+            if (EMPTY == id) return -1;
+            slot = (slot + 1) & this.mask;
+        }
+        return -1;
+    }
+
+    private int spread(long productId) {
+        // Sequential ids would otherwise cluster into long probe sequences
+        long hash = productId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    private short ordinal(String currencyCode) {
+        Short ordinal = this.currencyOrdinals.get(currencyCode);
+        if (null != ordinal) return ordinal;
+
+        synchronized (this.currencyOrdinals) {
+            ordinal = this.currencyOrdinals.get(currencyCode);
+            if (null != ordinal) return ordinal;
+
+            String[] codes = Arrays.copyOf(this.currencyCodes, this.currencyCodes.length + 1);
+            codes[codes.length - 1] = currencyCode;
+            this.currencyCodes = codes;
+
+            ordinal = (short) (codes.length - 1);
+            this.currencyOrdinals.put(currencyCode, ordinal);
+            return ordinal;
+        }
+    }
+
+    private int now() {
+        return (int) ((this.ticker.read() - this.startTime) / 1_000_000_000L);
+    }
+
+    private boolean isExpired(int writeTime, int now) {
+        return now - writeTime >= this.timeToLive;
+    }
+
+    private double footprint() {
+        return (double) this.productIds.length * (Long.BYTES + Integer.BYTES + Short.BYTES + Integer.BYTES);
+    }
+}
@@ -0,0 +1,201 @@
+package com.myretail.products.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.myretail.products.configuration.ResponseCacheConfiguration;
+import com.myretail.products.construction.EntityTagFactory;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.response.ProductResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+@Slf4j
+@Component
+public class ProductResponseCache {
+    private boolean enabled;
+    private boolean compressed;
+    private int compressionThreshold;
+    private RedSkyProductCache redSkyCache;
+    private ObjectWriter writer;
+    private Cache<Long, Entry> cache;
+    private StageTimers stages;
+
+    // Bumped on every invalidation, so that a response built from data read before an
+    // invalidation isn't cached after it
+    private AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Cache of product responses already encoded to JSON (and gzip compressed when large enough to
+     * be worth it), so that serving a hot product is a copy of bytes to the response rather than
+     * assembling and serializing the same response over and over. The cache is bounded by the
+     * bytes it holds rather than by a number of entries.
+     *
+     * A response is only served while the RedSky product it was built from is still the one in
+     * the RedSky cache, so it never outlives the RedSky data (nothing is cached if the RedSky cache
+     * is disabled). Price updates have to invalidate the response of the product explicitly.
+     *
+     * @param configuration The sizing, expiration and compression settings of the cache
+     * @param redSkyCache   The cache of the RedSky products the responses are built from
+     * @param mapper        The mapper to encode the responses with
+     * @param registry      The registry to publish hit, miss, eviction and footprint metrics to
+     * @param stages        The timers of the request stages, to time the encoding of responses
+     */
+    public ProductResponseCache(ResponseCacheConfiguration configuration,
+                                RedSkyProductCache redSkyCache,
+                                ObjectMapper mapper,
+                                MeterRegistry registry,
+                                StageTimers stages) {
+        this.enabled = configuration.isEnabled();
+        this.compressed = configuration.isCompressed();
+        this.compressionThreshold = configuration.getCompressionThreshold();
+        this.redSkyCache = redSkyCache;
+        this.writer = mapper.writerFor(ProductResponse.class);
+        this.stages = stages;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(configuration.getMaximumBytes())
+                .weigher((Long productId, Entry entry) -> entry.response.weight())
+                .expireAfterWrite(configuration.getTimeToLive().toNanos(), TimeUnit.NANOSECONDS)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, this.cache, "products.responses");
+        Gauge.builder("products.responses.footprint", this, ProductResponseCache::footprint)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    /**
+     * Reads the encoded response of a product from the cache or, if it isn't cached (or the RedSky
+     * product it was built from has since expired), builds it with the loader and encodes it. A
+     * response with errors is not cached. If the loader throws, nothing is cached and the
+     * exception is passed on to the caller.
+     *
+     * @param productId The identifier of the product
+     * @param loader    The function that builds the product response upon a cache miss
+     * @return The encoded product response
+     */
+    public EncodedResponse get(Long productId, Function<Long, ProductResponse> loader) {
+        if (!this.enabled || null == productId) return this.encode(loader.apply(productId));
+
+        EncodedResponse cached = this.getIfPresent(productId);
+        if (null != cached) return cached;
+
+        log.trace("Cache miss for the response of product {}", productId);
+        long invalidations = this.invalidations.get();
+        ProductResponse built = loader.apply(productId);
+        EncodedResponse response = this.encode(built);
+
+        // A response reporting errors (i.e. a price that couldn't be found) is only cached once
+        // it's complete, or the error would be served until the RedSky product expires
+        if (null != built.getErrors() && !built.getErrors().isEmpty()) return response;
+
+        // The RedSky product is read back once the response is built, which is the one the loader
+        // used unless it expired in the meantime
+        Optional<RedSkyProduct> source = this.redSkyCache.getIfPresentQuietly(productId);
+        if (null != source && source.isPresent() && invalidations == this.invalidations.get()) {
+            Entry entry = new Entry(source, response);
+            this.cache.put(productId, entry);
+
+            // An invalidation landing between the check and the put would be lost, so the check is
+            // made again once the entry is cached, and the entry is taken back out if it fails.
+            // Invalidations bump the counter before discarding, so one or the other catches it
+            if (invalidations != this.invalidations.get()) this.cache.asMap().remove(productId, entry);
+        }
+
+        return response;
+    }
+
+    /**
+     * Reads the encoded response of a product from the cache without building it upon a miss.
+     *
+     * @param productId The identifier of the product
+     * @return The encoded product response, or null if it isn't cached (or the RedSky product it
+     * was built from has since expired)
+     */
+    public EncodedResponse getIfPresent(Long productId) {
+        if (!this.enabled || null == productId) return null;
+
+        Entry entry = this.cache.getIfPresent(productId);
+        if (null == entry) return null;
+
+        if (entry.source == this.redSkyCache.getIfPresentQuietly(productId)) {
+            log.trace("Cache hit for the response of product {}", productId);
+            return entry.response;
+        }
+
+        log.trace("RedSky product {} changed since its response was cached", productId);
+        this.cache.asMap().remove(productId, entry);
+        return null;
+    }
+
+    /**
+     * Discards the cached response of a product, i.e. because its price changed.
+     *
+     * @param productId The identifier of the product
+     */
+    public void invalidate(Long productId) {
+        if (!this.enabled) return;
+
+        this.invalidations.incrementAndGet();
+        this.cache.invalidate(productId);
+    }
+
+    private EncodedResponse encode(ProductResponse response) {
+        long start = this.stages.start();
+        byte[] body;
+        try {
+            body = this.writer.writeValueAsBytes(response);
+        } catch (JsonProcessingException ex) {
+            this.stages.stop(StageTimers.SERIALIZE, ex, start);
+            throw new IllegalStateException("Unable to encode product response", ex);
+        }
+
+        byte[] compressedBody = this.compressed && body.length >= this.compressionThreshold ? gzip(body) : null;
+        EncodedResponse encoded = new EncodedResponse(body, compressedBody, EntityTagFactory.create(response));
+        this.stages.stop(StageTimers.SERIALIZE, StageTimers.SUCCESS, start);
+
+        return encoded;
+    }
+
+    private double footprint() {
+        return this.cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static class Entry {
+        private Optional<RedSkyProduct> source;
+        private EncodedResponse response;
+
+        private Entry(Optional<RedSkyProduct> source, EncodedResponse response) {
+            this.source = source;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.myretail.products.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.myretail.products.configuration.RedSkyCacheConfiguration;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+public class RedSkyProductCache {
+    private boolean enabled;
+    private Cache<Long, Optional<RedSkyProduct>> cache;
+
+    /**
+     * Bounded cache of RedSky products. Caffeine's W-TinyLFU policy only admits a new product at
+     * the expense of a resident one if the new product is requested more frequently, so a scan
+     * of one-off products doesn't flush the hot ones out of the cache. Products that RedSky doesn't
+     * know about are cached as empty entries for a much shorter time than the products it knows.
+     *
+     * @param configuration The sizing and expiration settings of the cache
+     * @param registry      The registry to publish hit, miss and eviction metrics to
+     */
+    public RedSkyProductCache(RedSkyCacheConfiguration configuration, MeterRegistry registry) {
+        this.enabled = configuration.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(configuration.getMaximumSize())
+                .expireAfter(new ProductExpiry(
+                        configuration.getTimeToLive().toNanos(),
+                        configuration.getNegativeTimeToLive().toNanos()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, this.cache, "redsky.products");
+    }
+
+    /**
+     * Reads a product from the cache without loading it upon a miss. Callers fetch the product
+     * themselves upon a miss and cache it with {@link #put(Long, Optional)}.
+     *
+     * @param productId The identifier of the product
+     * @return An optional with the cached product details (empty if the product is known not to
+     * exist), or null if nothing is cached for the product
+     */
+    public Optional<RedSkyProduct> getIfPresent(Long productId) {
+        if (!this.enabled) return null;
+
+        return this.cache.getIfPresent(productId);
+    }
+
+    /**
+     * Reads a product from the cache like {@link #getIfPresent(Long)}, but without recording a
+     * hit or a miss, for callers that only check which product is cached rather than serve it.
+     *
+     * @param productId The identifier of the product
+     * @return An optional with the cached product details (empty if the product is known not to
+     * exist), or null if nothing is cached for the product
+     */
+    public Optional<RedSkyProduct> getIfPresentQuietly(Long productId) {
+        if (!this.enabled) return null;
+
+        return this.cache.asMap().get(productId);
+    }
+
+    /**
+     * Caches the result of an asynchronous fetch of a product.
+     *
+     * @param productId The identifier of the product
+     * @param product   An optional with the product details, empty if the product is not known
+     */
+    public void put(Long productId, Optional<RedSkyProduct> product) {
+        if (!this.enabled) return;
+
+        this.cache.put(productId, product);
+    }
+
+    private static class ProductExpiry implements Expiry<Long, Optional<RedSkyProduct>> {
+        private long timeToLive;
+        private long negativeTimeToLive;
+
+        private ProductExpiry(long timeToLive, long negativeTimeToLive) {
+            this.timeToLive = timeToLive;
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+
+        @Override
+        public long expireAfterCreate(Long productId, Optional<RedSkyProduct> product, long currentTime) {
+            return product.isPresent() ? this.timeToLive : this.negativeTimeToLive;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long productId, Optional<RedSkyProduct> product, long currentTime, long currentDuration) {
+            return this.expireAfterCreate(productId, product, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long productId, Optional<RedSkyProduct> product, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
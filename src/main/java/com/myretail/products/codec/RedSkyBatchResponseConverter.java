@@ -0,0 +1,109 @@
+package com.myretail.products.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.myretail.products.model.redsky.RedSkyBatchResponse;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+public class RedSkyBatchResponseConverter extends AbstractHttpMessageConverter<RedSkyBatchResponse> {
+    private JsonFactory factory;
+
+    /**
+     * Reads responses of the RedSky batch endpoint (a "products" array of products shaped like
+     * the product of a single RedSky response) the same way single responses are read: streaming
+     * over every product for the mapped fields only, and skipping the rest of it.
+     *
+     * @param factory The factory of JSON parsers
+     */
+    public RedSkyBatchResponseConverter(JsonFactory factory) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.factory = factory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RedSkyBatchResponse.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RedSkyBatchResponse readInternal(Class<? extends RedSkyBatchResponse> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return this.decode(inputMessage.getBody());
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("Malformed RedSky batch response: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    @Override
+    protected void writeInternal(RedSkyBatchResponse response, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("RedSky responses are only ever read");
+    }
+
+    /**
+     * Decodes a RedSky batch response. Products that aren't objects are left out.
+     *
+     * @param body The JSON response
+     * @return The RedSky batch response with only the mapped fields of every product populated
+     * @throws IOException If the response can't be read or isn't valid JSON
+     */
+    public RedSkyBatchResponse decode(InputStream body) throws IOException {
+        try (JsonParser parser = this.factory.createParser(body)) {
+            List<RedSkyProduct> products = new ArrayList<>();
+            RedSkyBatchResponse response = new RedSkyBatchResponse(products);
+            if (JsonToken.START_OBJECT != parser.nextToken()) return response;
+
+            while (JsonToken.FIELD_NAME == parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("products".equals(field) && JsonToken.START_ARRAY == value) {
+                    decodeProducts(parser, products);
+                    // The rest of the response has nothing else to offer
+                    break;
+                }
+                parser.skipChildren();
+            }
+
+            return response;
+        }
+    }
+
+    private static void decodeProducts(JsonParser parser, List<RedSkyProduct> products) throws IOException {
+        JsonToken token;
+        while (JsonToken.END_ARRAY != (token = parser.nextToken()) && null != token) {
+            if (JsonToken.START_OBJECT != token) {
+                parser.skipChildren();
+                continue;
+            }
+
+            // Decoding stops within the product once its fields are found, so whatever is left of
+            // it is skipped until the parser is back in the array
+            JsonStreamContext array = parser.getParsingContext().getParent();
+            products.add(RedSkyResponseConverter.decodeProduct(parser));
+            while (parser.getParsingContext() != array) {
+                if (null == parser.nextToken()) return;
+                parser.skipChildren();
+            }
+        }
+    }
+}
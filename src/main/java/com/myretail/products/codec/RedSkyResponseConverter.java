@@ -0,0 +1,147 @@
+package com.myretail.products.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.myretail.products.model.redsky.RedSkyItem;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Slf4j
+public class RedSkyResponseConverter extends AbstractHttpMessageConverter<RedSkyResponse> {
+    private JsonFactory factory;
+
+    /**
+     * Reads RedSky responses by streaming over their tokens and only picking out the fields that
+     * are mapped to the domain model (the item's tcin and description title), rather than binding
+     * the whole document. Every other subtree is skipped without being built, and reading stops
+     * as soon as both fields are found.
+     *
+     * @param factory The factory of JSON parsers
+     */
+    public RedSkyResponseConverter(JsonFactory factory) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.factory = factory;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RedSkyResponse.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected RedSkyResponse readInternal(Class<? extends RedSkyResponse> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return this.decode(inputMessage.getBody());
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("Malformed RedSky response: " + ex.getOriginalMessage(), ex);
+        }
+    }
+
+    @Override
+    protected void writeInternal(RedSkyResponse response, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("RedSky responses are only ever read");
+    }
+
+    /**
+     * Decodes a RedSky response. The result is the same as binding the response to the model,
+     * only with the sections of the response that are missing left null.
+     *
+     * @param body The JSON response
+     * @return The RedSky response with only the mapped fields populated
+     * @throws IOException If the response can't be read or isn't valid JSON
+     */
+    public RedSkyResponse decode(InputStream body) throws IOException {
+        try (JsonParser parser = this.factory.createParser(body)) {
+            RedSkyResponse response = new RedSkyResponse();
+            if (JsonToken.START_OBJECT != parser.nextToken()) return response;
+
+            while (JsonToken.FIELD_NAME == parser.nextToken()) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("product".equals(field) && JsonToken.START_OBJECT == value) {
+                    response.setProduct(decodeProduct(parser));
+                    // The rest of the response has nothing else to offer
+                    break;
+                }
+                parser.skipChildren();
+            }
+
+            return response;
+        }
+    }
+
+    /**
+     * Decodes a product, with the parser on the start of its object. Reading stops once the item
+     * is decoded, so the parser may be left anywhere within the product.
+     *
+     * @param parser The parser positioned on the start of the product
+     * @return The product with only the mapped fields populated
+     * @throws IOException If the product can't be read or isn't valid JSON
+     */
+    static RedSkyProduct decodeProduct(JsonParser parser) throws IOException {
+        RedSkyProduct product = new RedSkyProduct();
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("item".equals(field) && JsonToken.START_OBJECT == value) {
+                product.setItem(decodeItem(parser));
+                break;
+            }
+            parser.skipChildren();
+        }
+        return product;
+    }
+
+    private static RedSkyItem decodeItem(JsonParser parser) throws IOException {
+        RedSkyItem item = new RedSkyItem();
+        boolean tcinFound = false;
+        boolean descriptionFound = false;
+
+        while (!(tcinFound && descriptionFound) && JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("tcin".equals(field)) {
+                item.setTcin(JsonToken.VALUE_NULL == value ? null : parser.getValueAsString());
+                tcinFound = true;
+            } else if ("product_description".equals(field) && JsonToken.START_OBJECT == value) {
+                item.setDescription(decodeDescription(parser));
+                descriptionFound = true;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return item;
+    }
+
+    private static RedSkyProductDescription decodeDescription(JsonParser parser) throws IOException {
+        RedSkyProductDescription description = new RedSkyProductDescription();
+        while (JsonToken.FIELD_NAME == parser.nextToken()) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("title".equals(field)) {
+                description.setTitle(JsonToken.VALUE_NULL == value ? null : parser.getValueAsString());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return description;
+    }
+}
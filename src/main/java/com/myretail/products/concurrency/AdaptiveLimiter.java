@@ -0,0 +1,134 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of concurrent calls to a dependency, moving the limit with the outcome of
+ * every call (additive increase, multiplicative decrease): the limit grows by one for every call
+ * that succeeded in time while the limit was in use, and shrinks by the backoff ratio for every
+ * call that failed or was slower than the latency threshold. The limit shrinks at most once per
+ * round trip: calls already in flight when it shrank don't shrink it again, since they were
+ * likely held up by the same slowdown. Calls over the limit are rejected right away rather than
+ * queued.
+ */
+@Slf4j
+public class AdaptiveLimiter {
+    private int minLimit;
+    private int maxLimit;
+    private long latencyThreshold;
+    private double backoffRatio;
+    private Counter rejected;
+
+    private volatile int limit;
+    private long lastDecrease = System.nanoTime();
+    private AtomicInteger inFlight = new AtomicInteger();
+
+    public AdaptiveLimiter(int initialLimit,
+                           int minLimit,
+                           int maxLimit,
+                           Duration latencyThreshold,
+                           double backoffRatio,
+                           Counter rejected) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyThreshold = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.rejected = rejected;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Acquires a permit to make a call, unless as many calls as the limit are already in flight.
+     * The permit must be released with the outcome of the call once it's done.
+     *
+     * @return The permit for the call, or null if the call is rejected
+     */
+    public Permit acquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= this.limit) {
+                this.rejected.increment();
+                return null;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) return new Permit(current + 1, System.nanoTime());
+        }
+    }
+
+    /**
+     * @return The current concurrency limit
+     */
+    public int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * @return The number of calls in flight
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    private synchronized void increase(int inFlight) {
+        // Only grow the limit while it's actually being used, otherwise it grows without bound
+        // while the load is light and offers no protection once it picks up
+        if (inFlight * 2 < this.limit) return;
+        this.limit = Math.min(this.maxLimit, this.limit + 1);
+    }
+
+    private synchronized void decrease(long start) {
+        if (start - this.lastDecrease < 0) return;
+        this.lastDecrease = System.nanoTime();
+
+        int previous = this.limit;
+        this.limit = Math.max(this.minLimit, (int) (previous * this.backoffRatio));
+        if (this.limit != previous) log.debug("Lowered the concurrency limit from {} to {}", previous, this.limit);
+    }
+
+    public class Permit {
+        private int inFlight;
+        private long start;
+        private boolean released;
+
+        private Permit(int inFlight, long start) {
+            this.inFlight = inFlight;
+            this.start = start;
+        }
+
+        /**
+         * Releases the permit of a call that succeeded. The limit grows if the call was faster
+         * than the latency threshold, and shrinks otherwise.
+         */
+        public void onSuccess() {
+            if (!release()) return;
+            if (System.nanoTime() - this.start > AdaptiveLimiter.this.latencyThreshold) decrease(this.start);
+            else increase(this.inFlight);
+        }
+
+        /**
+         * Releases the permit of a call that failed, i.e. timed out or was turned down by an
+         * overloaded dependency. The limit shrinks.
+         */
+        public void onDropped() {
+            if (release()) decrease(this.start);
+        }
+
+        /**
+         * Releases the permit of a call whose outcome says nothing about the dependency, i.e. it
+         * was rejected before reaching it. The limit is left as is.
+         */
+        public void onIgnored() {
+            release();
+        }
+
+        private boolean release() {
+            if (this.released) return false;
+            this.released = true;
+            AdaptiveLimiter.this.inFlight.decrementAndGet();
+            return true;
+        }
+    }
+}
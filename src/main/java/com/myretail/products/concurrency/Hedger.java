@@ -0,0 +1,315 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow calls: when a call hasn't answered within a percentile of the latencies recently
+ * observed, an identical call is made and whichever answers first is used, while the other one
+ * is cancelled. The extra calls are capped by a budget that earns a fraction of a hedge with
+ * every call made, and a hedge is only made while a whole one has been earned. Every hedge also
+ * holds its own share of the capacity of the dependency (i.e. a slot under its concurrency
+ * limits), and isn't made if there's none left.
+ *
+ * Cancelling a call interrupts its thread, which doesn't abort a blocking socket read. Calls
+ * register how to abort what they block on with {@link #onCancel(Runnable)}.
+ */
+@Slf4j
+public class Hedger {
+    // Most hedges a quiet period can save up for a burst of slow calls
+    private static final double MAX_BUDGET = 10;
+
+    // The attempt the current thread is making as part of a race, if any
+    private static final ThreadLocal<Attempt> CURRENT = new ThreadLocal<>();
+
+    private boolean enabled;
+    private AsyncListenableTaskExecutor executor;
+    private Capacity capacity;
+    private double percentile;
+    private long minimumDelay;
+    private double budgetPerCall;
+    private Counter sent;
+    private Counter won;
+    private Counter denied;
+
+    private long[] latencies;
+    private AtomicLong recorded = new AtomicLong();
+    private volatile long delay = Long.MAX_VALUE;
+    private double budget;
+
+    public Hedger(boolean enabled,
+                  AsyncListenableTaskExecutor executor,
+                  Capacity capacity,
+                  double percentile,
+                  Duration minimumDelay,
+                  double budgetPercent,
+                  int sampleSize,
+                  Counter sent,
+                  Counter won,
+                  Counter denied) {
+        this.enabled = enabled;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.percentile = percentile;
+        this.minimumDelay = minimumDelay.toNanos();
+        this.budgetPerCall = budgetPercent / 100;
+        this.latencies = new long[Math.max(10, sampleSize)];
+        this.sent = sent;
+        this.won = won;
+        this.denied = denied;
+    }
+
+    /**
+     * Executes the call, hedging it if it's slow. When hedging is disabled, or the executor is too
+     * busy to take the call, the call is executed by the current thread, unhedged. A hedge that
+     * the executor is too busy to take, or that there's no capacity left for, is counted as denied.
+     *
+     * @param call The call to execute; it may be executed twice at the same time
+     * @return The result of the call that answered first. If the first call to answer failed,
+     * the other one is waited on, and the exception is only thrown if both failed
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!this.enabled) return call.get();
+
+        earn();
+        Race<T> race = new Race<>();
+        try {
+            if (!race.submit(call, null)) {
+                log.trace("Executor saturated, making the call unhedged");
+                return call.get();
+            }
+
+            long delay = this.delay;
+            if (delay != Long.MAX_VALUE && !race.await(delay)) {
+                if (hedge(race, call)) {
+                    log.trace("Hedging a call slower than {} ns", delay);
+                    this.sent.increment();
+                } else {
+                    this.denied.increment();
+                }
+            }
+            return race.join();
+        } finally {
+            race.cancel();
+        }
+    }
+
+    /**
+     * Registers how to abort what the call running on the current thread blocks on (i.e. its HTTP
+     * request), should it be cancelled for losing its race. Does nothing outside of a race.
+     *
+     * @param abort The action aborting the call
+     */
+    public static void onCancel(Runnable abort) {
+        Attempt attempt = CURRENT.get();
+        if (null != attempt) attempt.onCancel(abort);
+    }
+
+    /**
+     * @return How long calls are given to answer before they're hedged, or null until enough
+     * latencies have been observed
+     */
+    public Duration getDelay() {
+        long delay = this.delay;
+        return delay == Long.MAX_VALUE ? null : Duration.ofNanos(delay);
+    }
+
+    private void record(long latency) {
+        long count = this.recorded.getAndIncrement();
+        this.latencies[(int) (count % this.latencies.length)] = latency;
+
+        // The percentile is computed again every tenth of the samples, rather than on every call
+        long interval = this.latencies.length / 10;
+        if ((count + 1) % interval == 0) this.delay = delay(Math.min(count + 1, this.latencies.length));
+    }
+
+    private synchronized long delay(long samples) {
+        long[] sorted = Arrays.copyOf(this.latencies, (int) samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.min(samples - 1, Math.ceil(this.percentile * samples) - 1);
+        return Math.max(this.minimumDelay, sorted[Math.max(0, index)]);
+    }
+
+    private <T> boolean hedge(Race<T> race, Supplier<T> call) {
+        if (!spend()) return false;
+
+        Reservation reservation = this.capacity.reserve();
+        if (null == reservation) return false;
+
+        if (race.submit(call, reservation)) return true;
+        reservation.onIgnored();
+        return false;
+    }
+
+    private synchronized void earn() {
+        this.budget = Math.min(MAX_BUDGET, this.budget + this.budgetPerCall);
+    }
+
+    private synchronized boolean spend() {
+        if (this.budget < 1) return false;
+        this.budget -= 1;
+        return true;
+    }
+
+    /**
+     * Capacity of the dependency that every hedge takes a share of, on top of the share taken by
+     * the call it hedges.
+     */
+    public interface Capacity {
+        /**
+         * A dependency whose capacity hedges don't need to take a share of.
+         */
+        Capacity UNLIMITED = () -> new Reservation() {
+            @Override
+            public void onSuccess() {
+            }
+
+            @Override
+            public void onDropped() {
+            }
+
+            @Override
+            public void onIgnored() {
+            }
+        };
+
+        /**
+         * @return The share of capacity reserved for a hedge, or null if there's none left
+         */
+        Reservation reserve();
+    }
+
+    /**
+     * Share of capacity held by a hedge, released with the outcome of the hedge once it's done.
+     */
+    public interface Reservation {
+        /**
+         * Releases the share of a hedge that answered.
+         */
+        void onSuccess();
+
+        /**
+         * Releases the share of a hedge that failed.
+         */
+        void onDropped();
+
+        /**
+         * Releases the share of a hedge that was cancelled or never made.
+         */
+        void onIgnored();
+    }
+
+    private static class Attempt {
+        private ListenableFuture<?> future;
+        private volatile Runnable abort;
+        private volatile boolean cancelled;
+
+        private void onCancel(Runnable abort) {
+            this.abort = abort;
+            // Cancelled before the abort was registered, so it has to be run here
+            if (this.cancelled) abort.run();
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            Runnable abort = this.abort;
+            if (null != abort) abort.run();
+            this.future.cancel(true);
+        }
+    }
+
+    private class Race<T> {
+        private CompletableFuture<T> winner = new CompletableFuture<>();
+        private List<Attempt> attempts = new CopyOnWriteArrayList<>();
+        private AtomicInteger pending = new AtomicInteger();
+        private AtomicBoolean answered = new AtomicBoolean();
+
+        private boolean submit(Supplier<T> call, Reservation reservation) {
+            boolean hedge = null != reservation;
+            Attempt attempt = new Attempt();
+            this.pending.incrementAndGet();
+            long start = System.nanoTime();
+            ListenableFuture<T> future;
+            try {
+                future = Hedger.this.executor.submitListenable(() -> {
+                    CURRENT.set(attempt);
+                    try {
+                        return call.get();
+                    } finally {
+                        CURRENT.remove();
+                    }
+                });
+            } catch (TaskRejectedException ex) {
+                this.pending.decrementAndGet();
+                return false;
+            }
+            attempt.future = future;
+            this.attempts.add(attempt);
+            future.addCallback(
+                    value -> {
+                        if (hedge) reservation.onSuccess();
+                        record(System.nanoTime() - start);
+                        // Counted before the caller is handed the answer, not after
+                        if (!this.answered.compareAndSet(false, true)) return;
+                        if (hedge) Hedger.this.won.increment();
+                        this.winner.complete(value);
+                    },
+                    ex -> {
+                        if (hedge && attempt.cancelled) reservation.onIgnored();
+                        else if (hedge) reservation.onDropped();
+                        // Losers failing (or being cancelled) change nothing once a call answered,
+                        // and the race is only lost once every call made failed
+                        if (0 == this.pending.decrementAndGet()) this.winner.completeExceptionally(ex);
+                    });
+            return true;
+        }
+
+        private boolean await(long timeout) {
+            try {
+                this.winner.get(timeout, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                // Thrown by join
+            }
+            return true;
+        }
+
+        private T join() {
+            try {
+                return this.winner.join();
+            } catch (CompletionException ex) {
+                // Rethrow what the call threw as if it had been executed by this caller
+                if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+                if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+                throw ex;
+            }
+        }
+
+        private void cancel() {
+            // Only the calls still in flight are aborted; the winner's connection is back in the pool
+            for (Attempt attempt : this.attempts) {
+                if (!attempt.future.isDone()) attempt.cancel();
+            }
+        }
+    }
+}
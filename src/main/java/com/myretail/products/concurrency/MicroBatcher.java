@@ -0,0 +1,105 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Gathers concurrent single-key loads into batches that are loaded with a single call. The first
+ * caller of a batch leads it: it waits for the window to pass (or the batch to fill up), then
+ * loads the batch on its own thread and hands every other caller its own value. No thread is
+ * dedicated to dispatching batches, and a caller never waits longer than the window plus the
+ * time the batch takes to load.
+ */
+@Slf4j
+public class MicroBatcher<K, V> {
+    private int maxSize;
+    private long window;
+    private Function<List<K>, Map<K, V>> loader;
+    private DistributionSummary fill;
+
+    private Batch current;
+
+    public MicroBatcher(int maxSize, Duration window, Function<List<K>, Map<K, V>> loader, DistributionSummary fill) {
+        this.maxSize = Math.max(1, maxSize);
+        this.window = window.toNanos();
+        this.loader = loader;
+        this.fill = fill;
+    }
+
+    /**
+     * Loads the value of the key along with the keys of other concurrent callers.
+     *
+     * @param key The key to load
+     * @return The value the loader returned for the key, or null if it returned none
+     */
+    public V get(K key) {
+        Batch batch;
+        CompletableFuture<V> value;
+        boolean leader;
+        synchronized (this) {
+            if (null == this.current) this.current = new Batch();
+            batch = this.current;
+            leader = batch.values.isEmpty();
+            value = batch.values.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.values.size() >= this.maxSize) {
+                // Full batches are closed right away, so the next caller starts a new one
+                this.current = null;
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) this.lead(batch);
+        return join(value);
+    }
+
+    private void lead(Batch batch) {
+        try {
+            batch.full.await(this.window, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<K> keys;
+        synchronized (this) {
+            if (this.current == batch) this.current = null;
+            keys = new ArrayList<>(batch.values.keySet());
+        }
+
+        log.trace("Loading a batch of {} keys", keys.size());
+        this.fill.record(keys.size());
+        try {
+            Map<K, V> values = this.loader.apply(keys);
+            batch.values.forEach((key, value) -> value.complete(values.get(key)));
+        } catch (Throwable ex) {
+            batch.values.values().forEach(value -> value.completeExceptionally(ex));
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> value) {
+        try {
+            return value.join();
+        } catch (CompletionException ex) {
+            // Rethrow what the loader threw as if it had been called by this caller
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private class Batch {
+        // Only modified while the batch is open, under the batcher's lock
+        private Map<K, CompletableFuture<V>> values = new LinkedHashMap<>();
+        private CountDownLatch full = new CountDownLatch(1);
+    }
+}
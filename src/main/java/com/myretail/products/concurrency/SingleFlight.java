@@ -0,0 +1,61 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+@Slf4j
+public class SingleFlight<K, V> {
+    private ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private Counter coalesced;
+
+    public SingleFlight(Counter coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    /**
+     * Executes the call for the key unless a call for the same key is already in flight, in which
+     * case the caller waits for that call instead and shares its result. Exceptions are shared as
+     * well: every caller waiting on a call that failed receives the exception it threw.
+     *
+     * @param key  The key identifying identical calls
+     * @param call The call to execute if none is in flight for the key
+     * @return The result of the call (whether it was executed by this caller or another one)
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = this.flights.putIfAbsent(key, flight);
+        if (null != inFlight) {
+            log.trace("Joining the call in flight for {}", key);
+            this.coalesced.increment();
+            return join(inFlight);
+        }
+
+        try {
+            V value = call.get();
+            flight.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.flights.remove(key, flight);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            // Rethrow what the call threw as if it had been executed by this caller
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.myretail.products.concurrency;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to the virtual threads of JDK 21 and later. The service is compiled for Java 8, so they
+ * are looked up reflectively rather than referenced directly.
+ */
+public final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return Whether the running JDK supports virtual threads
+     */
+    public static boolean isSupported() {
+        try {
+            factory("probe-");
+            return true;
+        } catch (IllegalStateException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a factory of virtual threads, named after the given prefix and a sequence number.
+     *
+     * @param namePrefix The prefix of the names of the threads
+     * @return A factory that starts a new virtual thread for every task
+     *
+     * @throws IllegalStateException If the running JDK doesn't support virtual threads
+     */
+    public static ThreadFactory factory(String namePrefix) throws IllegalStateException {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Method name = builderType.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, namePrefix, 0L);
+
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException ex) {
+            throw unsupported(ex);
+        } catch (InvocationTargetException ex) {
+            // Virtual threads were a preview feature before JDK 21, and unavailable unless enabled
+            throw unsupported(ex.getCause());
+        }
+    }
+
+    private static IllegalStateException unsupported(Throwable cause) {
+        return new IllegalStateException(String.format(
+                "Virtual threads require JDK 21 or later; running on %s",
+                System.getProperty("java.version")), cause);
+    }
+}
@@ -0,0 +1,28 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("executors")
+public class ExecutorConfiguration {
+    private Pool redsky = new Pool(8, 8, 256);
+    private Pool prices = new Pool(8, 8, 256);
+    private Pool requests = new Pool(200, 200, 1024);
+    private Pool hedges = new Pool(64, 64, 0);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int coreSize;
+        private int maxSize;
+        private int queueCapacity;
+    }
+}
@@ -0,0 +1,17 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("products.ingestion")
+public class IngestionConfiguration {
+    private int batchSize = 500;
+    private int maxLineLength = 4096;
+}
@@ -1,14 +1,101 @@
 package com.myretail.products.configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myretail.products.codec.RedSkyBatchResponseConverter;
+import com.myretail.products.codec.RedSkyResponseConverter;
+import com.myretail.products.concurrency.Hedger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class NetworkConfiguration {
 
+    /**
+     * Pool of connections to RedSky. The pool's leased, pending and available connection counts
+     * are published as gauges so that its sizing can be tuned against the observed load.
+     *
+     * @param configuration The sizing of the connection pool
+     * @param registry      The registry to publish the pool gauges to
+     * @return A connection manager pooling connections to RedSky
+     */
+    @Bean(destroyMethod = "shutdown")
+    public PoolingHttpClientConnectionManager redSkyConnectionManager(RedSkyPoolConfiguration configuration, MeterRegistry registry) {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(configuration.getMaxConnections());
+        manager.setDefaultMaxPerRoute(configuration.getMaxConnectionsPerRoute());
+
+        Gauge.builder("redsky.pool.connections", manager, m -> m.getTotalStats().getLeased())
+                .tag("state", "leased")
+                .register(registry);
+        Gauge.builder("redsky.pool.connections", manager, m -> m.getTotalStats().getPending())
+                .tag("state", "pending")
+                .register(registry);
+        Gauge.builder("redsky.pool.connections", manager, m -> m.getTotalStats().getAvailable())
+                .tag("state", "available")
+                .register(registry);
+        Gauge.builder("redsky.pool.connections.max", manager, m -> m.getTotalStats().getMax())
+                .register(registry);
+
+        return manager;
+    }
+
+    /**
+     * HTTP client leveraging the pooled connections to RedSky. Every request is bounded by the
+     * configured timeouts so that a slow RedSky can't hold on to request threads indefinitely, and
+     * connections that have been idle for too long are evicted in the background. Responses are
+     * requested gzip compressed and transparently decompressed.
+     *
+     * @param configuration The timeouts of the client
+     * @param manager       The pool of connections to RedSky
+     * @return A pooled HTTP client
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient redSkyHttpClient(RedSkyPoolConfiguration configuration, PoolingHttpClientConnectionManager manager) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) configuration.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) configuration.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) configuration.getConnectionRequestTimeout().toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(configuration.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * REST client to RedSky. RedSky responses (single or batched) are decoded by streaming over
+     * them for the few fields that are used rather than binding the whole (large) document.
+     * Requests made by a hedged call are aborted if the call loses its race, which releases the
+     * connection and the thread blocked reading from it.
+     *
+     * @param redSkyHttpClient The pooled HTTP client to RedSky
+     * @param mapper           The application's object mapper, whose JSON factory is reused
+     * @return A REST client to RedSky
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient redSkyHttpClient, ObjectMapper mapper) {
+        RestTemplate restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(redSkyHttpClient) {
+            @Override
+            protected void postProcessHttpRequest(HttpUriRequest request) {
+                Hedger.onCancel(request::abort);
+            }
+        });
+        restTemplate.getMessageConverters().add(0, new RedSkyResponseConverter(mapper.getFactory()));
+        restTemplate.getMessageConverters().add(1, new RedSkyBatchResponseConverter(mapper.getFactory()));
+        return restTemplate;
     }
 }
@@ -0,0 +1,20 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("prices.cache")
+public class PriceCacheConfiguration {
+    private boolean enabled = true;
+    private int capacity = 1_000_000;
+    private Duration timeToLive = Duration.ofMinutes(5);
+}
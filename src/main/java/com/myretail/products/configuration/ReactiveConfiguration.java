@@ -0,0 +1,48 @@
+package com.myretail.products.configuration;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.ipc.netty.resources.PoolResources;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+    /**
+     * Reactor Netty server for the reactive mode. Tomcat is on the classpath for the servlet mode
+     * and would otherwise be picked to serve the reactive stack as well.
+     *
+     * @return A factory of Netty servers
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Non-blocking HTTP client to RedSky. Connections are pooled with the same sizing as the
+     * servlet mode's pool, and acquiring one fails after the connection request timeout instead of
+     * queueing requests indefinitely once the pool is exhausted.
+     *
+     * @param builder       The web client builder pre-configured with the application's codecs
+     * @param configuration The sizing and timeouts of the connection pool
+     * @return A web client with pooled connections to RedSky
+     */
+    @Bean
+    public WebClient redSkyWebClient(WebClient.Builder builder, RedSkyPoolConfiguration configuration) {
+        ReactorClientHttpConnector connector = new ReactorClientHttpConnector(options -> options
+                .compression(true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) configuration.getConnectTimeout().toMillis())
+                .poolResources(PoolResources.fixed(
+                        "redsky",
+                        configuration.getMaxConnections(),
+                        configuration.getConnectionRequestTimeout().toMillis())));
+
+        return builder.clientConnector(connector).build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.batch")
+public class RedSkyBatchConfiguration {
+    private boolean enabled = false;
+    private String url;
+    private int maxSize = 50;
+    private Duration window = Duration.ofMillis(2);
+}
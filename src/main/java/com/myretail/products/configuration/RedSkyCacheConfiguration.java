@@ -0,0 +1,21 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.cache")
+public class RedSkyCacheConfiguration {
+    private boolean enabled = true;
+    private long maximumSize = 10_000;
+    private Duration timeToLive = Duration.ofMinutes(10);
+    private Duration negativeTimeToLive = Duration.ofSeconds(30);
+}
@@ -0,0 +1,27 @@
+package com.myretail.products.configuration;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig.SlidingWindowType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.circuit-breaker")
+public class RedSkyCircuitBreakerConfiguration {
+    private SlidingWindowType slidingWindowType = SlidingWindowType.COUNT_BASED;
+    private int slidingWindowSize = 50;
+    private int minimumNumberOfCalls = 20;
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 80;
+    private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+    private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+    private int permittedNumberOfCallsInHalfOpenState = 3;
+    private int maxConcurrentCalls = 50;
+}
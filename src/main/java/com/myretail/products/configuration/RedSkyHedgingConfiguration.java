@@ -0,0 +1,22 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.hedging")
+public class RedSkyHedgingConfiguration {
+    private boolean enabled = false;
+    private double percentile = 0.95;
+    private Duration minimumDelay = Duration.ofMillis(50);
+    private double budgetPercent = 5;
+    private int sampleSize = 1000;
+}
@@ -0,0 +1,22 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.limiter")
+public class RedSkyLimiterConfiguration {
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 50;
+    private Duration latencyThreshold = Duration.ofMillis(500);
+    private double backoffRatio = 0.9;
+}
@@ -0,0 +1,24 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("redsky.pool")
+public class RedSkyPoolConfiguration {
+    private int maxConnections = 50;
+    private int maxConnectionsPerRoute = 50;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    private Duration connectionRequestTimeout = Duration.ofMillis(500);
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private int warmupConnections = 4;
+}
@@ -0,0 +1,196 @@
+package com.myretail.products.configuration;
+
+import com.myretail.products.concurrency.AdaptiveLimiter;
+import com.myretail.products.concurrency.Hedger;
+import com.myretail.products.concurrency.SingleFlight;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+
+import java.time.Duration;
+import java.util.Optional;
+
+@Configuration
+public class ResilienceConfiguration {
+
+    /**
+     * Coalesces concurrent fetches of the same product from RedSky into a single request. The
+     * number of fetches that were served by another caller's request is counted.
+     *
+     * @param registry The registry to publish the coalesced fetches counter to
+     * @return A single flight for RedSky fetches keyed by product id
+     */
+    @Bean
+    public SingleFlight<Long, Optional<RedSkyProduct>> redSkySingleFlight(MeterRegistry registry) {
+        return new SingleFlight<>(registry.counter("redsky.requests.coalesced"));
+    }
+
+    /**
+     * Circuit breaker for RedSky. The circuit opens when the rate of failed (server or I/O errors)
+     * or slow calls over the sliding window crosses its threshold, so that requests fail fast
+     * instead of waiting on a degraded RedSky. After a while, a few probe calls are let through to
+     * decide whether to close the circuit again. The state of the circuit and its transitions are
+     * published as metrics.
+     *
+     * @param configuration The thresholds of the circuit breaker
+     * @param registry      The registry to publish the circuit breaker metrics to
+     * @return The circuit breaker guarding calls to RedSky
+     */
+    @Bean
+    public CircuitBreaker redSkyCircuitBreaker(RedSkyCircuitBreakerConfiguration configuration, MeterRegistry registry) {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("redsky", CircuitBreakerConfig.custom()
+                .slidingWindowType(configuration.getSlidingWindowType())
+                .slidingWindowSize(configuration.getSlidingWindowSize())
+                .minimumNumberOfCalls(configuration.getMinimumNumberOfCalls())
+                .failureRateThreshold(configuration.getFailureRateThreshold())
+                .slowCallRateThreshold(configuration.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(configuration.getSlowCallDurationThreshold())
+                .waitDurationInOpenState(configuration.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(configuration.getPermittedNumberOfCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .recordExceptions(RepositoryUnavailableException.class)
+                .build());
+
+        Gauge.builder("redsky.circuit.state", circuitBreaker, c -> c.getState().getOrder())
+                .description("0: closed, 1: open, 2: half open")
+                .register(registry);
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> registry.counter(
+                        "redsky.circuit.transitions",
+                        "from", event.getStateTransition().getFromState().name(),
+                        "to", event.getStateTransition().getToState().name()).increment())
+                .onCallNotPermitted(event -> registry.counter("redsky.circuit.rejected").increment());
+
+        return circuitBreaker;
+    }
+
+    /**
+     * Bulkhead limiting the number of concurrent calls to RedSky. Calls over the limit are
+     * rejected right away rather than queued.
+     *
+     * @param configuration The concurrency limit of the bulkhead
+     * @param registry      The registry to publish the bulkhead metrics to
+     * @return The bulkhead guarding calls to RedSky
+     */
+    @Bean
+    public Bulkhead redSkyBulkhead(RedSkyCircuitBreakerConfiguration configuration, MeterRegistry registry) {
+        Bulkhead bulkhead = Bulkhead.of("redsky", BulkheadConfig.custom()
+                .maxConcurrentCalls(configuration.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        Gauge.builder("redsky.bulkhead.available", bulkhead, b -> b.getMetrics().getAvailableConcurrentCalls())
+                .register(registry);
+        bulkhead.getEventPublisher()
+                .onCallRejected(event -> registry.counter("redsky.bulkhead.rejected").increment());
+
+        return bulkhead;
+    }
+
+    /**
+     * Adaptive limit on the number of concurrent calls to RedSky. The limit grows while RedSky
+     * answers in time and shrinks as soon as it slows down or fails, so that excess calls are
+     * rejected right away instead of piling up on a degraded RedSky. It stays within the bulkhead,
+     * which remains the hard ceiling. The limit, calls in flight and rejections are published as
+     * metrics.
+     *
+     * @param configuration The bounds and thresholds of the limit
+     * @param registry      The registry to publish the limiter metrics to
+     * @return The limiter guarding calls to RedSky
+     */
+    @Bean
+    public AdaptiveLimiter redSkyLimiter(RedSkyLimiterConfiguration configuration, MeterRegistry registry) {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(
+                configuration.getInitialLimit(),
+                configuration.getMinLimit(),
+                configuration.getMaxLimit(),
+                configuration.getLatencyThreshold(),
+                configuration.getBackoffRatio(),
+                registry.counter("redsky.limiter.rejected"));
+
+        Gauge.builder("redsky.limiter.limit", limiter, AdaptiveLimiter::getLimit)
+                .register(registry);
+        Gauge.builder("redsky.limiter.inflight", limiter, AdaptiveLimiter::getInFlight)
+                .register(registry);
+
+        return limiter;
+    }
+
+    /**
+     * Hedges RedSky calls slower than a percentile of the recently observed latencies with a
+     * second, identical call, and uses whichever answers first. Hedges are capped at a share of
+     * the calls made. Every hedge is a RedSky call of its own, so it takes its own permit from the
+     * limiter and slot in the bulkhead, and isn't sent if either is full. How many hedges were
+     * sent, how many of them answered first, how many weren't allowed (by the budget, the limits
+     * or a saturated executor), and the current delay before hedging are published as metrics.
+     *
+     * @param configuration The delay and budget of the hedges
+     * @param executor      The executor making the calls
+     * @param limiter       The limiter of calls to RedSky
+     * @param bulkhead      The bulkhead guarding calls to RedSky
+     * @param registry      The registry to publish the hedging metrics to
+     * @return The hedger of calls to RedSky
+     */
+    @Bean
+    public Hedger redSkyHedger(RedSkyHedgingConfiguration configuration,
+                               @Qualifier("hedgeExecutor") AsyncListenableTaskExecutor executor,
+                               AdaptiveLimiter limiter,
+                               Bulkhead bulkhead,
+                               MeterRegistry registry) {
+        Hedger hedger = new Hedger(
+                configuration.isEnabled(),
+                executor,
+                () -> reserve(limiter, bulkhead),
+                configuration.getPercentile(),
+                configuration.getMinimumDelay(),
+                configuration.getBudgetPercent(),
+                configuration.getSampleSize(),
+                registry.counter("redsky.hedge.sent"),
+                registry.counter("redsky.hedge.won"),
+                registry.counter("redsky.hedge.denied"));
+
+        Gauge.builder("redsky.hedge.delay", hedger, h -> null == h.getDelay() ? Double.NaN : h.getDelay().toMillis())
+                .baseUnit("milliseconds")
+                .register(registry);
+
+        return hedger;
+    }
+
+    private static Hedger.Reservation reserve(AdaptiveLimiter limiter, Bulkhead bulkhead) {
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+        if (null == permit) return null;
+        if (!bulkhead.tryAcquirePermission()) {
+            permit.onIgnored();
+            return null;
+        }
+
+        return new Hedger.Reservation() {
+            @Override
+            public void onSuccess() {
+                bulkhead.onComplete();
+                permit.onSuccess();
+            }
+
+            @Override
+            public void onDropped() {
+                bulkhead.onComplete();
+                permit.onDropped();
+            }
+
+            @Override
+            public void onIgnored() {
+                bulkhead.onComplete();
+                permit.onIgnored();
+            }
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("products.response-cache")
+public class ResponseCacheConfiguration {
+    private boolean enabled = true;
+    private long maximumBytes = 64 * 1024 * 1024;
+    private Duration timeToLive = Duration.ofMinutes(1);
+    private boolean compressed = true;
+    private int compressionThreshold = 1024;
+}
@@ -0,0 +1,29 @@
+package com.myretail.products.configuration;
+
+import com.myretail.products.metrics.ServerTimingFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import javax.servlet.DispatcherType;
+
+@Configuration
+@Profile("!reactive")
+public class ServletConfiguration {
+
+    /**
+     * Registers the Server-Timing filter for the dispatches writing the results of asynchronous
+     * requests as well, which filter beans aren't registered for by default, so the stage
+     * durations recorded while a result was produced are reported with it.
+     *
+     * @param filter The filter recording the stage durations of requests
+     * @return The registration of the filter
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilterRegistration(ServerTimingFilter filter) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        return registration;
+    }
+}
@@ -0,0 +1,110 @@
+package com.myretail.products.configuration;
+
+import com.myretail.products.metrics.ServerTiming;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@Profile("!virtual-threads")
+public class TaskConfiguration {
+
+    /**
+     * Bounded pool used to fan out lookups against RedSky. Once the queue is full, the submitting
+     * thread runs the lookup itself so that a burst of work slows callers down instead of piling
+     * up unbounded work in memory.
+     *
+     * @param configuration The sizing of the executor pools
+     * @return An executor dedicated to RedSky lookups
+     */
+    @Bean(name = "redSkyExecutor")
+    public ThreadPoolTaskExecutor redSkyExecutor(ExecutorConfiguration configuration) {
+        return executor("redsky-", configuration.getRedsky());
+    }
+
+    /**
+     * Bounded pool used to read prices while RedSky is being consulted on the request thread.
+     * Once the queue is full, the request thread reads the price itself.
+     *
+     * @param configuration The sizing of the executor pools
+     * @return An executor dedicated to pricing repository lookups
+     */
+    @Bean(name = "pricesExecutor")
+    public ThreadPoolTaskExecutor pricesExecutor(ExecutorConfiguration configuration) {
+        return executor("prices-", configuration.getPrices());
+    }
+
+    /**
+     * Bounded pool handling product reads and updates once the Tomcat request thread has handed
+     * them off, so request threads are only held while reading requests and writing responses.
+     * It's sized apart from Tomcat's pool, after how many requests RedSky and MongoDB can serve at
+     * once. Once the queue is full, the request thread handles the request itself, which holds
+     * off accepting more requests until the pool catches up.
+     *
+     * @param configuration The sizing of the executor pools
+     * @return An executor dedicated to handling requests asynchronously
+     */
+    @Bean(name = "requestExecutor")
+    public ThreadPoolTaskExecutor requestExecutor(ExecutorConfiguration configuration) {
+        return executor("request-", configuration.getRequests());
+    }
+
+    /**
+     * Pool making RedSky calls while hedging is enabled, so the caller can make a second call if
+     * the first one is slow. There's no queue, since time spent queued would count towards the
+     * delay before hedging. Once every thread is busy, calls are rejected rather than run by the
+     * caller, where they couldn't be cancelled: the caller makes the first call itself, unhedged,
+     * and doesn't hedge at all.
+     *
+     * @param configuration The sizing of the executor pools
+     * @return An executor dedicated to hedged RedSky calls
+     */
+    @Bean(name = "hedgeExecutor")
+    public ThreadPoolTaskExecutor hedgeExecutor(ExecutorConfiguration configuration) {
+        ThreadPoolTaskExecutor executor = executor("hedge-", configuration.getHedges());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Publishes the active thread count, queue depth, pool size and completed task count of every
+     * executor (tagged with its name), so each pool can be sized against its own saturation.
+     *
+     * @param redSkyExecutor  The executor of RedSky lookups
+     * @param pricesExecutor  The executor of price lookups
+     * @param requestExecutor The executor of requests handled asynchronously
+     * @param hedgeExecutor   The executor of hedged RedSky calls
+     * @return A binder of the executors' metrics
+     */
+    @Bean
+    public MeterBinder executorMetrics(@Qualifier("redSkyExecutor") ThreadPoolTaskExecutor redSkyExecutor,
+                                       @Qualifier("pricesExecutor") ThreadPoolTaskExecutor pricesExecutor,
+                                       @Qualifier("requestExecutor") ThreadPoolTaskExecutor requestExecutor,
+                                       @Qualifier("hedgeExecutor") ThreadPoolTaskExecutor hedgeExecutor) {
+        return registry -> {
+            new ExecutorServiceMetrics(redSkyExecutor.getThreadPoolExecutor(), "redSkyExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(pricesExecutor.getThreadPoolExecutor(), "pricesExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(requestExecutor.getThreadPoolExecutor(), "requestExecutor", Tags.empty()).bindTo(registry);
+            new ExecutorServiceMetrics(hedgeExecutor.getThreadPoolExecutor(), "hedgeExecutor", Tags.empty()).bindTo(registry);
+        };
+    }
+
+    private static ThreadPoolTaskExecutor executor(String threadNamePrefix, ExecutorConfiguration.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(pool.getMaxSize());
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // Stages run on behalf of a request are reported in its Server-Timing, if it has one
+        executor.setTaskDecorator(ServerTiming::propagate);
+        return executor;
+    }
+}
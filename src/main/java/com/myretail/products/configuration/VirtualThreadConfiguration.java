@@ -0,0 +1,70 @@
+package com.myretail.products.configuration;
+
+import com.myretail.products.concurrency.VirtualThreads;
+import com.myretail.products.metrics.ServerTiming;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfiguration {
+
+    /**
+     * Replaces the bounded pool used to fan out lookups against RedSky. The lookups are bounded
+     * by the RedSky bulkhead and connection pool instead.
+     *
+     * @return An executor starting a virtual thread per RedSky lookup
+     */
+    @Bean(name = "redSkyExecutor")
+    public SimpleAsyncTaskExecutor redSkyExecutor() {
+        return executor("redsky-");
+    }
+
+    /**
+     * Replaces the bounded pool used to read prices. The reads are bounded by the MongoDB
+     * connection pool instead.
+     *
+     * @return An executor starting a virtual thread per price lookup
+     */
+    @Bean(name = "pricesExecutor")
+    public SimpleAsyncTaskExecutor pricesExecutor() {
+        return executor("prices-");
+    }
+
+    /**
+     * Replaces the bounded pool handling requests asynchronously, so product reads and updates
+     * run on a virtual thread of their own once Tomcat hands them off. Tomcat itself keeps its
+     * pool of platform threads: Tomcat 8.5 holds the socket's monitor while it processes a
+     * request, which pins a virtual thread to its carrier for as long as it's blocked. Once every
+     * carrier is pinned, virtual threads holding locks those pinned threads wait on (i.e. the
+     * logging appender's) can't be mounted again, and the service stalls.
+     *
+     * @return An executor starting a virtual thread per request
+     */
+    @Bean(name = "requestExecutor")
+    public SimpleAsyncTaskExecutor requestExecutor() {
+        return executor("request-");
+    }
+
+    /**
+     * Replaces the pool making hedged RedSky calls. The calls are bounded by the RedSky limiter,
+     * bulkhead and hedging budget instead.
+     *
+     * @return An executor starting a virtual thread per hedged call
+     */
+    @Bean(name = "hedgeExecutor")
+    public SimpleAsyncTaskExecutor hedgeExecutor() {
+        return executor("hedge-");
+    }
+
+    private static SimpleAsyncTaskExecutor executor(String threadNamePrefix) {
+        // Fails the startup on JDKs without virtual threads rather than quietly using platform
+        // threads
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(VirtualThreads.factory(threadNamePrefix));
+        // Stages run on behalf of a request are reported in its Server-Timing, if it has one
+        executor.setTaskDecorator(ServerTiming::propagate);
+        return executor;
+    }
+}
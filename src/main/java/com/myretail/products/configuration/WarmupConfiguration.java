@@ -0,0 +1,24 @@
+package com.myretail.products.configuration;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import java.time.Duration;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Configuration
+@ConfigurationProperties("products.warmup")
+public class WarmupConfiguration {
+    private boolean enabled = true;
+    // File with one product id per line; the ids of the prices collection are used if not set
+    private Resource productIds;
+    private int maxProducts = 1000;
+    private int batchSize = 100;
+    private Duration timeBudget = Duration.ofSeconds(30);
+}
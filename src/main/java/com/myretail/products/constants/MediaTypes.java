@@ -0,0 +1,6 @@
+package com.myretail.products.constants;
+
+public class MediaTypes {
+    // Newline delimited JSON, one JSON document per line
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+}
@@ -0,0 +1,57 @@
+package com.myretail.products.construction;
+
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+public class EntityTagFactory {
+    // Bumped whenever the JSON representation of a response changes for the same content, so that
+    // clients don't keep a representation they can no longer be sent
+    private static final String REPRESENTATION_VERSION = "1";
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Creates a strong entity tag for a product response from the RedSky details and price it was
+     * built from (along with its errors), rather than from its encoded bytes. The same response
+     * always gets the same tag, so the tag of a response can be known without encoding it.
+     *
+     * @param response The product response
+     * @return The quoted entity tag of the response
+     */
+    public static String create(ProductResponse response) {
+        StringBuilder content = new StringBuilder(128).append(REPRESENTATION_VERSION);
+        for (Product product : response.getData()) {
+            content.append(SEPARATOR).append(product.getId())
+                    .append(SEPARATOR).append(product.getDescription());
+            if (null != product.getPrice()) {
+                content.append(SEPARATOR).append(Float.floatToIntBits(product.getPrice().getValue()))
+                        .append(SEPARATOR).append(product.getPrice().getCurrencyCode());
+            }
+        }
+        for (ProductError error : response.getErrors()) {
+            content.append(SEPARATOR).append(error.getSource())
+                    .append(SEPARATOR).append(error.getMessage());
+        }
+
+        String etag = '"' + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + '"';
+        log.trace("Created entity tag {} for [{}]", etag, response);
+
+        return etag;
+    }
+
+    /**
+     * Creates the entity tag of the gzip compressed representation of a response, which can't
+     * share the tag of the uncompressed representation.
+     *
+     * @param etag The quoted entity tag of the uncompressed response
+     * @return The quoted entity tag of the compressed response
+     */
+    public static String compressed(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+}
@@ -1,54 +1,190 @@
 package com.myretail.products.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.myretail.products.cache.EncodedResponse;
+import com.myretail.products.cache.ProductResponseCache;
+import com.myretail.products.constants.MediaTypes;
 import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.construction.EntityTagFactory;
+import com.myretail.products.exception.RequestTimeoutException;
 import com.myretail.products.exception.UnsupportedOperationException;
+import com.myretail.products.model.pricing.PriceSaveResult;
+import com.myretail.products.model.request.ProductQuery;
+import com.myretail.products.model.response.PriceIngestionOutcome;
 import com.myretail.products.model.response.Product;
 import com.myretail.products.model.response.ProductResponse;
+import com.myretail.products.service.PriceExportService;
+import com.myretail.products.service.PriceIngestionService;
 import com.myretail.products.service.ProductService;
 import com.myretail.products.validation.RequestValidator;
 import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Slf4j
+@Profile("!reactive")
 @RequestMapping("/products")
 @RestController
 public class ProductController {
 
     private ProductService service;
+    private ProductResponseCache responseCache;
+    private PriceIngestionService ingestionService;
+    private PriceExportService exportService;
     private RequestValidator validator;
+    private Executor requestExecutor;
+    private ObjectWriter writer;
+    private ObjectWriter exportWriter;
 
-    public ProductController(ProductService service, RequestValidator validator) {
+    public ProductController(ProductService service,
+                             ProductResponseCache responseCache,
+                             PriceIngestionService ingestionService,
+                             PriceExportService exportService,
+                             RequestValidator validator,
+                             @Qualifier("requestExecutor") Executor requestExecutor,
+                             ObjectMapper mapper) {
         this.service = service;
+        this.responseCache = responseCache;
+        this.ingestionService = ingestionService;
+        this.exportService = exportService;
         this.validator = validator;
+        this.requestExecutor = requestExecutor;
+        this.writer = mapper.writer();
+        // Exported prices have no name, which is left out rather than written as null
+        this.exportWriter = mapper.copy().setSerializationInclusion(JsonInclude.Include.NON_NULL).writerFor(Product.class);
     }
 
+    /**
+     * Handles an HTTP GET request for a batch of products given a comma separated list of product
+     * IDs. Without any IDs, the request is for the full collection of products which isn't supported.
+     *
+     * @param productIds The ids of the products to retrieve details for
+     * @return The product response with details of every product found and errors for the rest
+     */
+    @Timed("operation.get.many")
     @GetMapping()
-    public ProductResponse get() {
-        log.info("Attempt to getOne details for all products");
-        throw new UnsupportedOperationException("Interacting with the full collection of products is not supported yet");
+    public ProductResponse get(@RequestParam(value = "ids", required = false) List<Long> productIds) {
+        if (null == productIds || productIds.isEmpty()) {
+            log.info("Attempt to getOne details for all products");
+            throw new UnsupportedOperationException("Interacting with the full collection of products is not supported yet");
+        }
+
+        log.info("Request to get details for products {}", productIds);
+        return this.getAll(productIds);
+    }
+
+    /**
+     * Handles an HTTP POST request for a batch of products given the product IDs in the body. This
+     * is the equivalent of the batch GET for sets of IDs that are too large to fit in a URL.
+     *
+     * @param query The ids of the products to retrieve details for
+     * @return The product response with details of every product found and errors for the rest
+     */
+    @Timed("operation.query.many")
+    @PostMapping("/query")
+    public ProductResponse query(@RequestBody ProductQuery query) {
+        log.info("Request to query details for products {}", query);
+        return this.getAll(query.getIds());
     }
 
     /**
      * Handles an HTTP GET request for a product given a product ID. If the product ID is valid,
-     * the details of the product are retrieved up from upstream sources and provided as a response
+     * the details of the product are retrieved up from upstream sources and provided as a response.
+     * The response is written as already encoded bytes, which are cached for hot products so that
+     * they aren't assembled and serialized again on every request. Clients that accept gzip get
+     * the compressed bytes when the response is large enough to have been compressed.
+     *
+     * Every response carries an entity tag derived from the product details and price. A client
+     * whose copy is still current (its If-None-Match matches) gets a 304 without a body, without
+     * even consulting the upstream sources if the product details and price are all cached.
+     *
+     * Responses that can be answered from the caches alone are returned as is, so the request
+     * thread writes them without starting async processing (and the dispatch back to the servlet
+     * container it entails). Otherwise the request thread is released while the product is
+     * retrieved on the request executor. Spring MVC picks how to handle the result by its actual
+     * type, hence the handler returning either.
      *
-     * @param productId The id of the product to retrieve details for
-     * @return The product response with product details and/or errors fetching the details
+     * @param productId      The id of the product to retrieve details for
+     * @param acceptEncoding The encodings the client accepts, if any
+     * @param ifNoneMatch    The entity tags of the copies the client has, if any
+     * @return The encoded product response with product details and/or errors fetching the details:
+     * a ResponseEntity if the caches could answer, otherwise a DeferredResult of one
      */
     @Timed("operation.get.one")
-    @GetMapping("/{id}")
-    public ProductResponse get(@PathVariable("id") Long productId) {
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public Object get(@PathVariable("id") Long productId,
+                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Request to get details for product {}", productId);
 
         validator.validate(productId);
 
-        ProductResponse response = service.getProduct(productId);
-        log.trace("Responding with [{}]", response);
+        ResponseEntity<byte[]> cached = this.getCached(productId, acceptEncoding, ifNoneMatch);
+        if (null != cached) return cached;
 
-        return response;
+        return async(productId, () -> respond(responseCache.get(productId, service::getProduct), acceptEncoding, ifNoneMatch));
+    }
+
+    private ResponseEntity<byte[]> getCached(Long productId, String acceptEncoding, String ifNoneMatch) {
+        EncodedResponse response = responseCache.getIfPresent(productId);
+        if (null != response) return respond(response, acceptEncoding, ifNoneMatch);
+        if (null == ifNoneMatch) return null;
+
+        // The entity tag doesn't depend on the encoding, so a client's copy can be proven current
+        // from the cached product details and price alone
+        ProductResponse cached = service.getCachedProduct(productId);
+        String etag = null == cached ? null : EntityTagFactory.create(cached);
+        if (null != etag) {
+            if (matches(ifNoneMatch, etag)) return notModified(etag);
+
+            String compressedEtag = EntityTagFactory.compressed(etag);
+            if (matches(ifNoneMatch, compressedEtag)) return notModified(compressedEtag);
+        }
+        return null;
+    }
+
+    private static ResponseEntity<byte[]> respond(EncodedResponse response, String acceptEncoding, String ifNoneMatch) {
+        log.trace("Responding with {} bytes tagged {}", response.getBody().length, response.getEtag());
+
+        boolean compressed = null != response.getCompressedBody() && acceptsGzip(acceptEncoding);
+        String etag = compressed ? response.getCompressedEtag() : response.getEtag();
+
+        boolean current = null != ifNoneMatch && matches(ifNoneMatch, etag);
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(current ? HttpStatus.NOT_MODIFIED : HttpStatus.OK).eTag(etag);
+        if (null != response.getCompressedBody()) {
+            builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (current) return builder.build();
+
+        builder.contentType(MediaType.APPLICATION_JSON_UTF8);
+        if (compressed) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getCompressedBody());
+        }
+        return builder.body(response.getBody());
     }
 
     /**
@@ -61,27 +197,155 @@ public class ProductController {
      * the RedSky endpoint (only price details are updated), the updated state of the resource is
      * returned to be extremely clear to the client about the result of the operation.
      *
+     * The request is validated on the request thread, which is then released while the price is
+     * saved and the product retrieved on the request executor.
+     *
      * @param productId The ID of the product resource to update
      * @param product The details to update the product with
-     * @param httpResponse A handle to the HTTP Response to modify the status code appropriately
-     * @return The updated product details record
+     * @return The updated product details record, with a status indicating if it was created, once
+     * it's available
      */
     @Timed("operation.put.one")
     @PutMapping("/{id}")
-    public ProductResponse save(@PathVariable("id") Long productId, @RequestBody Product product, HttpServletResponse httpResponse) {
+    public DeferredResult<ResponseEntity<ProductResponse>> save(@PathVariable("id") Long productId, @RequestBody Product product) {
         log.info("Request to update product {} to {}", productId, product);
 
         validator.validate(productId);
         validator.validate(product);
 
-        PriceSaveOperation operation = service.saveProductPrice(productId, product);
-        log.trace("Saving price updates completed with a {} operation", operation);
+        return async(productId, () -> {
+            PriceSaveResult result = service.saveProductPrice(productId, product);
+            log.trace("Saving price updates completed with a {} operation", result.getOperation());
+
+            // The price was just written, so there is no need to read it back from the repository
+            ProductResponse response = service.getProduct(productId, result.getPrice());
+            log.trace("Responding with [{}]", response);
 
-        if (PriceSaveOperation.CREATE == operation) {
-            httpResponse.setStatus(HttpServletResponse.SC_CREATED);
+            HttpStatus status = PriceSaveOperation.CREATE == result.getOperation() ? HttpStatus.CREATED : HttpStatus.OK;
+            return ResponseEntity.status(status).body(response);
+        });
+    }
+
+    /**
+     * Handles an HTTP POST request with a stream of price updates, one JSON product per line. The
+     * body is read and the outcome of every line (created, updated or rejected) is written back as
+     * the updates are saved, so neither is ever held in memory as a whole.
+     *
+     * @param httpRequest  A handle to the HTTP Request to stream the price updates from
+     * @param httpResponse A handle to the HTTP Response to stream the outcomes to
+     * @throws IOException If the request can't be read or the response can't be written
+     */
+    @Timed("operation.ingest.many")
+    @PostMapping(value = "/prices", consumes = MediaTypes.APPLICATION_NDJSON_VALUE)
+    public void ingest(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+        log.info("Request to ingest a stream of price updates");
+
+        httpResponse.setContentType(MediaTypes.APPLICATION_NDJSON_VALUE);
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Reader lines = new InputStreamReader(httpRequest.getInputStream(), StandardCharsets.UTF_8);
+        Writer out = httpResponse.getWriter();
+        ingestionService.ingest(lines, outcomes -> {
+            try {
+                for (PriceIngestionOutcome outcome : outcomes) {
+                    out.write(writer.writeValueAsString(outcome));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Handles an HTTP GET request for every product price, streamed as newline delimited JSON in
+     * the same format the price updates are ingested in. Prices are written straight to the
+     * response as they are read from the repository, and the response is flushed after every
+     * batch. A client that reads slowly blocks the writes, which in turn holds off reading the
+     * next batch, so the export never holds more than a batch of prices in memory.
+     *
+     * @param httpResponse A handle to the HTTP Response to stream the prices to
+     * @throws IOException If the response can't be written
+     */
+    @Timed("operation.export.many")
+    @GetMapping(value = "/prices", produces = MediaTypes.APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse httpResponse) throws IOException {
+        log.info("Request to export all product prices");
+
+        httpResponse.setContentType(MediaTypes.APPLICATION_NDJSON_VALUE);
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        Writer out = httpResponse.getWriter();
+        long count = exportService.export(products -> {
+            try {
+                for (Product product : products) {
+                    out.write(exportWriter.writeValueAsString(product));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        log.trace("Exported {} product prices", count);
+    }
+
+    private <T> DeferredResult<T> async(Long productId, Supplier<T> handler) {
+        // The result is written once the handler completes, or as an error if it takes longer than
+        // the asynchronous request timeout (spring.mvc.async.request-timeout); the handler isn't
+        // interrupted, its result is just dropped
+        DeferredResult<T> result = new DeferredResult<>();
+        result.onTimeout(() -> result.setErrorResult(new RequestTimeoutException(String.format(
+                "Timed out handling the request for product %s",
+                productId))));
+
+        CompletableFuture.supplyAsync(handler, requestExecutor).whenComplete((value, ex) -> {
+            if (null == ex) {
+                result.setResult(value);
+            } else {
+                result.setErrorResult(ex instanceof CompletionException ? ex.getCause() : ex);
+            }
+        });
+        return result;
+    }
+
+    private static ResponseEntity<byte[]> notModified(String etag) {
+        // Whether the response would have been compressed isn't known without encoding it, so the
+        // 304 always carries the Vary header a compressible 200 would have had
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .build();
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        // If-None-Match compares entity tags weakly, so a weak tag matches its strong counterpart
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if ("*".equals(tag) || etag.equals(tag)) return true;
         }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (null == acceptEncoding) return false;
+
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parameters = encoding.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(parameters[0].trim())) continue;
+
+            // A zero quality means the encoding is explicitly not acceptable
+            return parameters.length < 2 || !parameters[1].trim().matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    private ProductResponse getAll(List<Long> productIds) {
+        validator.validate(productIds);
 
-        ProductResponse response = service.getProduct(productId);
+        ProductResponse response = service.getProducts(productIds);
         log.trace("Responding with [{}]", response);
 
         return response;
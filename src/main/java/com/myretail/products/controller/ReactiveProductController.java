@@ -0,0 +1,128 @@
+package com.myretail.products.controller;
+
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.construction.EntityTagFactory;
+import com.myretail.products.exception.UnsupportedOperationException;
+import com.myretail.products.metrics.ServerTiming;
+import com.myretail.products.model.request.ProductQuery;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductResponse;
+import com.myretail.products.service.ReactiveProductService;
+import com.myretail.products.validation.RequestValidator;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of the ProductController, serving the same routes and payloads when the
+ * application runs with the reactive profile. Operations are timed under the same names, and
+ * single products are tagged so that clients can revalidate their copy.
+ */
+@Slf4j
+@Profile("reactive")
+@RequestMapping("/products")
+@RestController
+public class ReactiveProductController {
+
+    private ReactiveProductService service;
+    private RequestValidator validator;
+
+    public ReactiveProductController(ReactiveProductService service, RequestValidator validator) {
+        this.service = service;
+        this.validator = validator;
+    }
+
+    @Timed("operation.get.many")
+    @GetMapping()
+    public Mono<ProductResponse> get(@RequestParam(value = "ids", required = false) List<Long> productIds) {
+        if (null == productIds || productIds.isEmpty()) {
+            log.info("Attempt to getOne details for all products");
+            throw new UnsupportedOperationException("Interacting with the full collection of products is not supported yet");
+        }
+
+        log.info("Request to get details for products {}", productIds);
+        return this.getAll(productIds);
+    }
+
+    @Timed("operation.query.many")
+    @PostMapping("/query")
+    public Mono<ProductResponse> query(@RequestBody ProductQuery query) {
+        log.info("Request to query details for products {}", query);
+        return this.getAll(query.getIds());
+    }
+
+    /**
+     * Every response carries the same entity tag as in the servlet mode; WebFlux answers a client
+     * whose copy is still current (its If-None-Match matches) with a 304 without a body.
+     *
+     * @param productId The id of the product to retrieve details for
+     * @return The product response with product details and/or errors fetching the details
+     */
+    @Timed("operation.get.one")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponse>> get(@PathVariable("id") Long productId) {
+        log.info("Request to get details for product {}", productId);
+
+        return validate(() -> validator.validate(productId))
+                .then(Mono.defer(() -> service.getProduct(productId)))
+                .doOnNext(response -> log.trace("Responding with [{}]", response))
+                .map(response -> ResponseEntity.ok().eTag(EntityTagFactory.create(response)).body(response));
+    }
+
+    @Timed("operation.put.one")
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<ProductResponse>> save(@PathVariable("id") Long productId, @RequestBody Product product) {
+        log.info("Request to update product {} to {}", productId, product);
+
+        return validate(() -> {
+            validator.validate(productId);
+            validator.validate(product);
+        }).then(Mono.defer(() -> service.saveProductPrice(productId, product))).flatMap(result -> {
+            log.trace("Saving price updates completed with a {} operation", result.getOperation());
+            HttpStatus status = PriceSaveOperation.CREATE == result.getOperation() ? HttpStatus.CREATED : HttpStatus.OK;
+
+            // The price was just written, so there is no need to read it back from the repository
+            return service.getProduct(productId, result.getPrice())
+                    .doOnNext(response -> log.trace("Responding with [{}]", response))
+                    .map(response -> ResponseEntity.status(status).body(response));
+        });
+    }
+
+    /**
+     * Translates the application's exceptions to the status codes they are annotated with. The
+     * reactive error handling only knows the status of a ResponseStatusException, so every other
+     * exception would otherwise be reported as an internal server error.
+     *
+     * @param ex The exception raised while handling a request
+     * @return The equivalent ResponseStatusException, or the exception as is if it isn't annotated
+     */
+    @ExceptionHandler
+    public Mono<ProductResponse> handle(RuntimeException ex) {
+        ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(ex.getClass(), ResponseStatus.class);
+        if (null == status) return Mono.error(ex);
+
+        return Mono.error(new ResponseStatusException(status.code(), ex.getMessage(), ex));
+    }
+
+    private Mono<ProductResponse> getAll(List<Long> productIds) {
+        return validate(() -> validator.validate(productIds))
+                .then(Mono.defer(() -> service.getProducts(productIds)))
+                .doOnNext(response -> log.trace("Responding with [{}]", response));
+    }
+
+    // Requests are validated as part of their pipeline rather than by the handlers, so that the
+    // validation is recorded with the Server-Timing of the request carried in the subscriber context
+    private static Mono<Void> validate(Runnable validation) {
+        return Mono.subscriberContext()
+                .doOnNext(context -> ServerTiming.propagate(ServerTiming.from(context), validation).run())
+                .then();
+    }
+}
@@ -0,0 +1,44 @@
+package com.myretail.products.controller;
+
+import com.myretail.products.metrics.ServerTiming;
+import com.myretail.products.metrics.StageTimers;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+// Advice to add the Server-Timing header to responses of requests whose stage durations are being
+// recorded, as late as possible while the headers can still be written
+@Profile("!reactive")
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    private StageTimers stages;
+
+    public ServerTimingAdvice(StageTimers stages) {
+        this.stages = stages;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response) {
+        ServerTiming timing = ServerTiming.current();
+        if (null != timing) {
+            response.getHeaders().set(ServerTiming.HEADER, timing.header(this.stages.start()));
+        }
+        return body;
+    }
+}
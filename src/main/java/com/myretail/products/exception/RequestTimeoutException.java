@@ -0,0 +1,11 @@
+package com.myretail.products.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class RequestTimeoutException extends RuntimeException {
+    public RequestTimeoutException(String message) {
+        super(message);
+    }
+}
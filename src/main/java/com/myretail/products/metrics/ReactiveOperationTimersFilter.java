@@ -0,0 +1,73 @@
+package com.myretail.products.metrics;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.metrics.web.reactive.server.WebFluxTagsProvider;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+// Filter to time the handlers annotated with @Timed when running with the reactive profile, which
+// the WebFlux metrics don't do (unlike the servlet ones), so that both modes publish the same
+// operation timers. Timers are tagged like the http.server.requests ones, plus the extra tags of
+// the annotation
+@Profile("reactive")
+@Component
+public class ReactiveOperationTimersFilter implements WebFilter {
+
+    private MeterRegistry registry;
+    private Clock clock;
+    private WebFluxTagsProvider tagsProvider;
+
+    public ReactiveOperationTimersFilter(MeterRegistry registry, WebFluxTagsProvider tagsProvider) {
+        this.registry = registry;
+        this.clock = registry.config().clock();
+        this.tagsProvider = tagsProvider;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long start = this.clock.monotonicTime();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> this.record(exchange, null, start))
+                .doOnError(ex -> this.record(exchange, ex, start));
+    }
+
+    private void record(ServerWebExchange exchange, Throwable ex, long start) {
+        // The handler is only known once the request has been mapped
+        Object handler = exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod)) return;
+
+        Timed timed = AnnotationUtils.findAnnotation(((HandlerMethod) handler).getMethod(), Timed.class);
+        if (null == timed) return;
+
+        // Errors are only turned into a response once they've gone through the filters, so the
+        // status they are answered with is taken from the exception itself
+        Iterable<Tag> tags = this.tagsProvider.httpRequestTags(exchange, ex);
+        if (ex instanceof ResponseStatusException) {
+            tags = Tags.of(tags).and("status", String.valueOf(((ResponseStatusException) ex).getStatus().value()));
+        }
+
+        Timer.builder(timed.value())
+                .description(timed.description().isEmpty() ? null : timed.description())
+                .tags(tags)
+                .tags(timed.extraTags())
+                .publishPercentileHistogram(timed.histogram())
+                .publishPercentiles(timed.percentiles().length == 0 ? null : timed.percentiles())
+                .register(this.registry)
+                .record(this.clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
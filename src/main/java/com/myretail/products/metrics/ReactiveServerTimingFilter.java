@@ -0,0 +1,37 @@
+package com.myretail.products.metrics;
+
+import com.myretail.products.configuration.ServerTimingConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+// Reactive counterpart of the ServerTimingFilter. Requests aren't bound to a thread, so the stage
+// durations are carried in the subscriber context instead, and the header is added right before
+// the response is committed (which covers responses without a body, i.e. a 304)
+@Profile("reactive")
+@Component
+public class ReactiveServerTimingFilter implements WebFilter {
+
+    private boolean enabled;
+    private StageTimers stages;
+
+    public ReactiveServerTimingFilter(ServerTimingConfiguration configuration, StageTimers stages) {
+        this.enabled = configuration.isEnabled();
+        this.stages = stages;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (!this.enabled) return chain.filter(exchange);
+
+        ServerTiming timing = ServerTiming.of(this.stages.start());
+        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> exchange.getResponse()
+                .getHeaders()
+                .set(ServerTiming.HEADER, timing.header(this.stages.start()))));
+
+        return chain.filter(exchange).subscriberContext(ServerTiming.context(timing));
+    }
+}
@@ -0,0 +1,185 @@
+package com.myretail.products.metrics;
+
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class ServerTiming {
+    public static final String HEADER = "Server-Timing";
+
+    // Stages reported in the header, in the order they are reported
+    private static final String[] STAGES = {
+            StageTimers.VALIDATION,
+            StageTimers.REDSKY,
+            StageTimers.PRICES_READ,
+            StageTimers.PRICES_WRITE,
+            StageTimers.BUILD,
+            StageTimers.SERIALIZE
+    };
+
+    private static final ThreadLocal<ServerTiming> CURRENT = new ThreadLocal<>();
+
+    private long start;
+    private AtomicLongArray durations = new AtomicLongArray(STAGES.length);
+
+    private ServerTiming(long start) {
+        this.start = start;
+    }
+
+    /**
+     * Starts recording the stage durations of the request handled by the current thread.
+     *
+     * @param start The start time of the request in nanoseconds
+     * @return The stage durations of the request, to be resumed if it's continued by another thread
+     */
+    public static ServerTiming begin(long start) {
+        ServerTiming timing = new ServerTiming(start);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Starts recording the stage durations of a request that isn't bound to a thread, i.e. when it
+     * is handled reactively, in which case they are carried in the subscriber context instead.
+     *
+     * @param start The start time of the request in nanoseconds
+     * @return The stage durations of the request
+     */
+    public static ServerTiming of(long start) {
+        return new ServerTiming(start);
+    }
+
+    /**
+     * @param context The subscriber context of a reactive request
+     * @return The stage durations of the request, or null if they aren't being recorded
+     */
+    public static ServerTiming from(Context context) {
+        return context.getOrDefault(ServerTiming.class, null);
+    }
+
+    /**
+     * @param timing The stage durations of a reactive request
+     * @return The subscriber context carrying the stage durations of the request
+     */
+    public static Context context(ServerTiming timing) {
+        return Context.of(ServerTiming.class, timing);
+    }
+
+    /**
+     * Resumes recording the stage durations of a request continued by the current thread, i.e.
+     * when the result of an asynchronous request is dispatched to be written.
+     *
+     * @param timing The stage durations of the request, as returned when they were begun
+     */
+    public static void resume(ServerTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    /**
+     * Stops recording the stage durations of the request handled by the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return The stage durations of the request handled by the current thread, or null if they
+     * aren't being recorded
+     */
+    public static ServerTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Decorates a task handed off to another thread so that the stages it runs are recorded with
+     * the request that handed it off. Tasks are returned as is when nothing is being recorded.
+     *
+     * @param task The task handed off by the current thread
+     * @return The task recording to the current thread's request
+     */
+    public static Runnable propagate(Runnable task) {
+        return propagate(CURRENT.get(), task);
+    }
+
+    /**
+     * Decorates a task so that the stages it runs are recorded with the given request, i.e. a
+     * reactive request whose stage durations are carried in the subscriber context. Tasks are
+     * returned as is when nothing is being recorded.
+     *
+     * @param timing The stage durations of the request, or null if they aren't being recorded
+     * @param task   The task to record to the request
+     * @return The task recording to the request
+     */
+    public static Runnable propagate(ServerTiming timing, Runnable task) {
+        if (null == timing) return task;
+
+        return () -> {
+            ServerTiming previous = CURRENT.get();
+            CURRENT.set(timing);
+            try {
+                task.run();
+            } finally {
+                if (null == previous) CURRENT.remove();
+                else CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Adds the duration of a stage; stages that run more than once (i.e. for a batch of products)
+     * add up, even when they ran at the same time on different threads.
+     *
+     * @param stage    The stage
+     * @param duration The duration of the stage in nanoseconds
+     */
+    public void add(String stage, long duration) {
+        int index = indexOf(stage);
+        if (index >= 0) this.durations.addAndGet(index, duration);
+    }
+
+    /**
+     * Formats the value of the Server-Timing header with the duration of every stage that ran
+     * and the total duration of the request so far, in milliseconds.
+     *
+     * @param now The current time in nanoseconds
+     * @return The value of the Server-Timing header
+     */
+    public String header(long now) {
+        StringBuilder header = new StringBuilder(128);
+        for (int i = 0; i < STAGES.length; i++) {
+            long duration = this.durations.get(i);
+            if (0 == duration) continue;
+            append(header, STAGES[i], duration).append(", ");
+        }
+        return append(header, "total", now - this.start).toString();
+    }
+
+    private static StringBuilder append(StringBuilder header, String stage, long duration) {
+        // Milliseconds with microsecond precision, without going through floating point formatting
+        long micros = duration / 1_000;
+        header.append(stage).append(";dur=").append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) header.append('0');
+        if (fraction < 10) header.append('0');
+        return header.append(fraction);
+    }
+
+    private static int indexOf(String stage) {
+        switch (stage) {
+            case StageTimers.VALIDATION:
+                return 0;
+            case StageTimers.REDSKY:
+                return 1;
+            case StageTimers.PRICES_READ:
+                return 2;
+            case StageTimers.PRICES_WRITE:
+                return 3;
+            case StageTimers.BUILD:
+                return 4;
+            case StageTimers.SERIALIZE:
+                return 5;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.myretail.products.metrics;
+
+import com.myretail.products.configuration.ServerTimingConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// Filter to record the stage durations of every request while Server-Timing is enabled. The header
+// itself is added just before the response body is written, since the response is committed by then
+@Profile("!reactive")
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+    private static final String ATTRIBUTE = ServerTimingFilter.class.getName() + ".TIMING";
+
+    private boolean enabled;
+    private StageTimers stages;
+
+    public ServerTimingFilter(ServerTimingConfiguration configuration, StageTimers stages) {
+        this.enabled = configuration.isEnabled();
+        this.stages = stages;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!this.enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Asynchronous requests are dispatched again to write their result, which resumes the
+        // recording begun when they were first dispatched
+        ServerTiming timing = (ServerTiming) request.getAttribute(ATTRIBUTE);
+        if (null == timing) {
+            request.setAttribute(ATTRIBUTE, ServerTiming.begin(this.stages.start()));
+        } else {
+            ServerTiming.resume(timing);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ServerTiming.end();
+        }
+    }
+}
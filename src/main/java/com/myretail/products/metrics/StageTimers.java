@@ -0,0 +1,147 @@
+package com.myretail.products.metrics;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+@Component
+public class StageTimers {
+    public static final String METRIC = "products.stage";
+
+    // Stages of the request pipelines
+    public static final String REDSKY = "redsky";
+    public static final String PRICES_READ = "prices.read";
+    public static final String PRICES_WRITE = "prices.write";
+    public static final String VALIDATION = "validation";
+    public static final String BUILD = "build";
+    public static final String SERIALIZE = "serialize";
+
+    // Outcomes of a stage
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String SUCCESS = "success";
+    public static final String NOT_FOUND = "not_found";
+    public static final String CLIENT_ERROR = "client_error";
+    public static final String SERVER_ERROR = "server_error";
+
+    private static final String NO_EXCEPTION = "none";
+
+    private MeterRegistry registry;
+    private Clock clock;
+    private ConcurrentMap<String, ConcurrentMap<String, ConcurrentMap<String, Timer>>> timers = new ConcurrentHashMap<>();
+    private ConcurrentMap<Class<?>, String> exceptionOutcomes = new ConcurrentHashMap<>();
+
+    /**
+     * Timers of the stages of the request pipelines (RedSky lookups, price reads and writes,
+     * validation, response building and serialization), so that a latency regression can be pinned on a stage.
+     * Every stage is timed with a percentile histogram, tagged with the stage, its outcome and the
+     * type of the exception it failed with (if any). Stages and outcomes are fixed sets, and
+     * exceptions are tagged with their class name, so the number of timers stays bounded.
+     *
+     * Timing a stage is a pair of clock reads with no allocation once its timer exists. Stages are
+     * also added to the Server-Timing of the current request, if it is being recorded.
+     *
+     * @param registry The registry to publish the timers to
+     */
+    public StageTimers(MeterRegistry registry) {
+        this.registry = registry;
+        this.clock = registry.config().clock();
+    }
+
+    /**
+     * @return The start time of a stage, to hand back when the stage completes
+     */
+    public long start() {
+        return this.clock.monotonicTime();
+    }
+
+    /**
+     * Records a stage that completed.
+     *
+     * @param stage   The stage
+     * @param outcome The outcome of the stage
+     * @param start   The start time of the stage
+     */
+    public void stop(String stage, String outcome, long start) {
+        this.record(ServerTiming.current(), stage, outcome, NO_EXCEPTION, start);
+    }
+
+    /**
+     * Records a stage that failed. Exceptions that respond with a client error status are recorded
+     * as client errors, every other exception as a server error.
+     *
+     * @param stage The stage
+     * @param ex    The exception the stage failed with
+     * @param start The start time of the stage
+     */
+    public void stop(String stage, Throwable ex, long start) {
+        this.record(ServerTiming.current(), stage, this.outcomeOf(ex), ex.getClass().getSimpleName(), start);
+    }
+
+    /**
+     * Times a stage run reactively, from when it's subscribed to until it completes or fails. The
+     * stage is added to the Server-Timing carried in the subscriber context, if there is one.
+     *
+     * @param stage   The stage
+     * @param outcome The outcome of the stage given its result, or null if it completed empty
+     * @param source  The stage to time
+     * @param <T>     The type of the result of the stage
+     * @return The timed stage
+     */
+    public <T> Mono<T> time(String stage, Function<T, String> outcome, Mono<T> source) {
+        return Mono.subscriberContext().flatMap(context -> {
+            ServerTiming timing = ServerTiming.from(context);
+            long start = this.start();
+            return source
+                    .doOnSuccess(result -> this.record(timing, stage, outcome.apply(result), NO_EXCEPTION, start))
+                    .doOnError(ex -> this.record(timing, stage, this.outcomeOf(ex), ex.getClass().getSimpleName(), start));
+        });
+    }
+
+    private void record(ServerTiming timing, String stage, String outcome, String exception, long start) {
+        long duration = this.clock.monotonicTime() - start;
+
+        if (null != timing) timing.add(stage, duration);
+
+        // The timer is looked up before falling back to computeIfAbsent, whose registering lambda
+        // captures the tags and would otherwise be allocated on every call
+        ConcurrentMap<String, Timer> exceptions = this.timers
+                .computeIfAbsent(stage, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(outcome, key -> new ConcurrentHashMap<>());
+        Timer timer = exceptions.get(exception);
+        if (null == timer) {
+            timer = exceptions.computeIfAbsent(exception, key -> this.register(stage, outcome, exception));
+        }
+        timer.record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer register(String stage, String outcome, String exception) {
+        log.debug("Registering timer for stage {} with outcome {} and exception {}", stage, outcome, exception);
+        return Timer.builder(METRIC)
+                .description("Duration of a stage of the product request pipelines")
+                .tags("stage", stage, "outcome", outcome, "exception", exception)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(this.registry);
+    }
+
+    private String outcomeOf(Throwable ex) {
+        return this.exceptionOutcomes.computeIfAbsent(ex.getClass(), type -> {
+            ResponseStatus status = AnnotatedElementUtils.findMergedAnnotation(type, ResponseStatus.class);
+            return null != status && status.code().is4xxClientError() ? CLIENT_ERROR : SERVER_ERROR;
+        });
+    }
+}
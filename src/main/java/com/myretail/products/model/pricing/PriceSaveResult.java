@@ -0,0 +1,14 @@
+package com.myretail.products.model.pricing;
+
+import com.myretail.products.constants.PriceSaveOperation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceSaveResult {
+    private PriceSaveOperation operation;
+    private ProductPrice price;
+}
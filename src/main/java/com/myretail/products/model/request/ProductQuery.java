@@ -0,0 +1,15 @@
+package com.myretail.products.model.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductQuery {
+    @JsonProperty("ids") private List<Long> ids;
+}
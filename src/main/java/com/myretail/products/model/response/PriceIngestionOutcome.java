@@ -0,0 +1,22 @@
+package com.myretail.products.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceIngestionOutcome {
+    public static String CREATED = "created";
+    public static String UPDATED = "updated";
+    public static String REJECTED = "rejected";
+
+    @JsonProperty("line") long line;
+    @JsonProperty("id") Long id;
+    @JsonProperty("outcome") String outcome;
+    @JsonProperty("message") String message;
+}
@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductPrices extends MongoRepository<ProductPrice, Long> {
+public interface ProductPrices extends MongoRepository<ProductPrice, Long>, ProductPricesCustom {
 }
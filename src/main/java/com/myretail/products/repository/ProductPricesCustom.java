@@ -0,0 +1,40 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.model.pricing.ProductPrice;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.List;
+
+public interface ProductPricesCustom {
+
+    /**
+     * Saves a product price with a single atomic upsert, so there is no window between checking
+     * if the price exists and saving it where a concurrent save could slip in.
+     *
+     * @param price The product price to save
+     * @return Indication of if the upsert resulted in an update or an insert
+     */
+    PriceSaveOperation upsert(ProductPrice price);
+
+    /**
+     * Saves a batch of product prices with a single unordered bulk write of upserts. Mongo may
+     * apply the upserts in any order, so the batch must not contain the same product twice. The
+     * failure of an upsert doesn't prevent the others from being applied.
+     *
+     * @param prices The product prices to save
+     * @return Indication of if each upsert resulted in an update or an insert, in the order of the
+     * input; null for the upserts that failed
+     */
+    List<PriceSaveOperation> upsertAll(List<ProductPrice> prices);
+
+    /**
+     * Iterates over every product price with a cursor, so only one batch of prices is held in
+     * memory at a time no matter how many there are. The iterator must be closed once done with
+     * to release the cursor.
+     *
+     * @param batchSize The number of prices fetched from Mongo at a time
+     * @return An iterator over every product price, in no particular order
+     */
+    CloseableIterator<ProductPrice> streamAll(int batchSize);
+}
@@ -0,0 +1,111 @@
+package com.myretail.products.repository;
+
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteUpsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.result.UpdateResult;
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.model.pricing.ProductPrice;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Slf4j
+public class ProductPricesImpl implements ProductPricesCustom {
+    private MongoTemplate template;
+
+    public ProductPricesImpl(MongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public PriceSaveOperation upsert(ProductPrice price) {
+        log.debug("Upserting product price {}", price);
+
+        UpdateResult result = this.template.upsert(byProductId(price), updateOf(price), ProductPrice.class);
+        log.trace("Upsert result: [{}]", result);
+
+        // Mongo only reports an upserted id when the upsert inserted a new document
+        return null != result.getUpsertedId() ? PriceSaveOperation.CREATE : PriceSaveOperation.UPDATE;
+    }
+
+    @Override
+    public List<PriceSaveOperation> upsertAll(List<ProductPrice> prices) {
+        log.debug("Upserting {} product prices", prices.size());
+        if (prices.isEmpty()) return Collections.emptyList();
+
+        BulkOperations operations = this.template.bulkOps(BulkOperations.BulkMode.UNORDERED, ProductPrice.class);
+        prices.forEach(price -> operations.upsert(byProductId(price), updateOf(price)));
+
+        List<PriceSaveOperation> results = new ArrayList<>(Collections.nCopies(prices.size(), PriceSaveOperation.UPDATE));
+        // Mongo only reports an upserted id for the upserts that inserted a new document
+        try {
+            BulkWriteResult result = operations.execute();
+            log.trace("Bulk upsert result: [{}]", result);
+            result.getUpserts().forEach(upsert -> results.set(upsert.getIndex(), PriceSaveOperation.CREATE));
+        } catch (BulkOperationException bulkEx) {
+            // The upserts that didn't fail were still applied
+            log.warn("{} of {} product price upserts failed", bulkEx.getErrors().size(), prices.size());
+            for (BulkWriteUpsert upsert : bulkEx.getResult().getUpserts()) {
+                results.set(upsert.getIndex(), PriceSaveOperation.CREATE);
+            }
+            for (BulkWriteError error : bulkEx.getErrors()) {
+                log.debug("Upsert of product price {} failed: [{}]", prices.get(error.getIndex()), error.getMessage());
+                results.set(error.getIndex(), null);
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public CloseableIterator<ProductPrice> streamAll(int batchSize) {
+        log.debug("Streaming all product prices in batches of {}", batchSize);
+
+        // MongoTemplate.stream doesn't allow for the cursor's batch size to be set, so the cursor
+        // is opened on the collection directly and its documents are mapped one at a time
+        MongoConverter converter = this.template.getConverter();
+        MongoCursor<Document> cursor = this.template
+                .getCollection(this.template.getCollectionName(ProductPrice.class))
+                .find()
+                .batchSize(batchSize)
+                .iterator();
+
+        return new CloseableIterator<ProductPrice>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public ProductPrice next() {
+                return converter.read(ProductPrice.class, cursor.next());
+            }
+
+            @Override
+            public void close() {
+                cursor.close();
+            }
+        };
+    }
+
+    private static Query byProductId(ProductPrice price) {
+        return Query.query(Criteria.where("productId").is(price.getProductId()));
+    }
+
+    private static Update updateOf(ProductPrice price) {
+        return Update.update("price", price.getPrice()).set("currency", price.getCurrency());
+    }
+}
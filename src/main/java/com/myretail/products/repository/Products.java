@@ -1,42 +1,120 @@
 package com.myretail.products.repository;
 
+import com.myretail.products.cache.RedSkyProductCache;
+import com.myretail.products.concurrency.AdaptiveLimiter;
+import com.myretail.products.concurrency.Hedger;
+import com.myretail.products.concurrency.MicroBatcher;
+import com.myretail.products.concurrency.SingleFlight;
+import com.myretail.products.configuration.RedSkyBatchConfiguration;
 import com.myretail.products.configuration.RedSkyConfiguration;
 import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyBatchResponse;
 import com.myretail.products.model.redsky.RedSkyProduct;
 import com.myretail.products.model.redsky.RedSkyResponse;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
 public class Products {
     private RedSkyConfiguration configuration;
+    private RedSkyBatchConfiguration batchConfiguration;
     private RestTemplate client;
+    private RedSkyProductCache cache;
+    private SingleFlight<Long, Optional<RedSkyProduct>> singleFlight;
+    private CircuitBreaker circuitBreaker;
+    private Bulkhead bulkhead;
+    private AdaptiveLimiter limiter;
+    private Hedger hedger;
+    private MicroBatcher<Long, Optional<RedSkyProduct>> batcher;
+    private boolean batching;
+    private StageTimers stages;
 
-    public Products(RedSkyConfiguration configuration, RestTemplate restTemplate) {
+    public Products(RedSkyConfiguration configuration,
+                    RedSkyBatchConfiguration batchConfiguration,
+                    RestTemplate restTemplate,
+                    RedSkyProductCache cache,
+                    SingleFlight<Long, Optional<RedSkyProduct>> singleFlight,
+                    CircuitBreaker circuitBreaker,
+                    Bulkhead bulkhead,
+                    AdaptiveLimiter limiter,
+                    Hedger hedger,
+                    StageTimers stages,
+                    MeterRegistry registry) {
         this.configuration = configuration;
+        this.batchConfiguration = batchConfiguration;
         this.client = restTemplate;
+        this.cache = cache;
+        this.singleFlight = singleFlight;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.limiter = limiter;
+        this.hedger = hedger;
+        this.stages = stages;
+
+        // Concurrent fetches of distinct products are gathered into batch requests; how full the
+        // batches get tells whether the window and maximum size are worth their wait
+        this.batching = batchConfiguration.isEnabled();
+        if (this.batching && !StringUtils.hasText(batchConfiguration.getUrl())) {
+            throw new IllegalStateException("Batching RedSky requests requires the URL of its batch endpoint (redsky.batch.url)");
+        }
+        this.batcher = new MicroBatcher<>(
+                batchConfiguration.getMaxSize(),
+                batchConfiguration.getWindow(),
+                this::guardedFetchAll,
+                DistributionSummary.builder("redsky.batch.fill")
+                        .description("Products fetched per batch request to RedSky")
+                        .baseUnit("products")
+                        .publishPercentileHistogram()
+                        .maximumExpectedValue((long) batchConfiguration.getMaxSize())
+                        .register(registry));
     }
 
     /***
      * Retrieves a single product from the RedSky REST endpoint. The detailed JSON response from
      * RedSky is mapped down to the relevant domain model for this product.
      *
+     * Products are served from the cache when possible. Client errors are cached as well (for a
+     * shorter time), but server errors are not. Concurrent cache misses for the same product
+     * share a single request to RedSky, along with its result or exception. While RedSky is
+     * degraded (the circuit is open) or too many requests are already in flight, requests fail
+     * fast without reaching RedSky. How many requests may be in flight adapts to how quickly
+     * RedSky answers. Slow requests may be hedged with a second one, if hedging is enabled.
+     *
+     * If batching is enabled, cache misses for distinct products that happen within the batch
+     * window are fetched together with a single request to the RedSky batch endpoint.
+     *
      * @param productId The identifier of the product
      * @return An optional with the product details associated with the input. If client errors
      * are encountered, they are logged and an empty product is returned
      *
-     * @throws RepositoryUnavailableException If any server errors are encountered trying to
-     * leverage the RedSky REST endpoint, then an exception is thrown with the appropriate status
-     * code and message
+     * @throws RepositoryUnavailableException If any server or I/O errors are encountered trying
+     * to leverage the RedSky REST endpoint, then an exception is thrown with the appropriate status
+     * code and message. The same goes for requests that are rejected without reaching RedSky
      */
     public Optional<RedSkyProduct> getOne(Long productId) throws RepositoryUnavailableException {
         log.debug("Reading product {} from RedSky repository", productId);
@@ -44,36 +122,205 @@ public class Products {
         // Don't bother trying to make the REST call if the product ID is null
         if (null == productId) return Optional.empty();
 
+        // Cache hits are timed apart from fetches (successful or not), which are the ones that
+        // actually depend on RedSky. The cache is read once and filled explicitly upon a miss, so
+        // that every lookup is counted as a single hit or miss
+        long start = this.stages.start();
+        try {
+            Optional<RedSkyProduct> product = this.cache.getIfPresent(productId);
+            if (null != product) {
+                this.stages.stop(StageTimers.REDSKY, StageTimers.HIT, start);
+                return product;
+            }
+
+            product = this.singleFlight.execute(productId, () -> this.batching
+                    ? this.batcher.get(productId)
+                    : this.guardedFetch(productId));
+            this.cache.put(productId, product);
+            this.stages.stop(StageTimers.REDSKY, product.isPresent() ? StageTimers.MISS : StageTimers.CLIENT_ERROR, start);
+            return product;
+        } catch (RuntimeException ex) {
+            this.stages.stop(StageTimers.REDSKY, ex, start);
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads a product from the cache only, without ever reaching RedSky. The read isn't counted as
+     * a cache hit or miss, since a caller missing the product goes on to look it up with
+     * {@link #getOne(Long)}.
+     *
+     * @param productId The identifier of the product
+     * @return An optional with the cached product details (empty if the product is known not to
+     * exist), or null if nothing is cached for the product
+     */
+    public Optional<RedSkyProduct> getCached(Long productId) {
+        if (null == productId) return null;
+
+        return this.cache.getIfPresentQuietly(productId);
+    }
+
+    private Optional<RedSkyProduct> guardedFetch(Long productId) throws RepositoryUnavailableException {
+        return this.guarded("Product " + productId, () -> this.fetch(productId));
+    }
+
+    private Map<Long, Optional<RedSkyProduct>> guardedFetchAll(List<Long> productIds) throws RepositoryUnavailableException {
+        return this.guarded("Products " + productIds, () -> this.fetchAll(productIds));
+    }
+
+    private <T> T guarded(String subject, Supplier<T> fetch) throws RepositoryUnavailableException {
+        // The limiter is outside of the circuit breaker so that it learns from the calls that
+        // reached RedSky only, and its rejections aren't recorded as RedSky failures
+        AdaptiveLimiter.Permit permit = this.limiter.acquire();
+        if (null == permit) {
+            log.debug("Over the concurrency limit of RedSky: [{}]", this.limiter.getLimit());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; Over the concurrency limit of %s; %s",
+                    this.limiter.getLimit(),
+                    subject));
+        }
+
+        // The bulkhead is outside of the circuit breaker so that rejections for being too busy
+        // aren't recorded as RedSky failures
+        try {
+            T result = Bulkhead.decorateSupplier(
+                    this.bulkhead,
+                    CircuitBreaker.decorateSupplier(this.circuitBreaker, fetch)).get();
+            permit.onSuccess();
+            return result;
+        } catch (CallNotPermittedException openEx) {
+            permit.onIgnored();
+            log.debug("Circuit to RedSky is open: [{}]", openEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; Circuit %s; %s",
+                    this.circuitBreaker.getState(),
+                    subject));
+        } catch (BulkheadFullException fullEx) {
+            permit.onIgnored();
+            log.debug("Too many concurrent requests to RedSky: [{}]", fullEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; Too many concurrent requests; %s",
+                    subject));
+        } catch (RuntimeException ex) {
+            permit.onDropped();
+            throw ex;
+        }
+    }
+
+    private Optional<RedSkyProduct> fetch(Long productId) throws RepositoryUnavailableException {
+        log.debug("Fetching product {} from RedSky", productId);
+
         // Fetch product details from the RedSky REST endpoint and unwrap the envelope to return
         // the product details. Upon encountering client errors, log the issue and return an empty
-        // product. Upon encountering server errors, indicate that the repository is unavailable
+        // product. Upon encountering server errors, I/O errors (i.e. timeouts) or responses that
+        // can't be decoded, indicate that the repository is unavailable: only client errors say
+        // the product doesn't exist, and an empty product is cached as such
+        URI uri = formatUri(this.configuration, productId);
         ResponseEntity<RedSkyResponse> response;
         try {
-            response = this.client.getForEntity(this.formatUri(productId), RedSkyResponse.class);
-            return Optional.of(response.getBody().getProduct());
+            response = this.hedger.execute(() -> this.client.getForEntity(uri, RedSkyResponse.class));
         } catch (HttpClientErrorException clientEx) {
             log.debug("Encountered a client exception: [HTTP {}, {}]", clientEx.getStatusCode(), clientEx.getMessage());
+            return Optional.empty();
         } catch (HttpServerErrorException serverEx) {
             log.debug("Encountered a server exception: [HTTP {}, {}]", serverEx.getStatusCode(), serverEx.getMessage());
             throw new RepositoryUnavailableException(String.format(
                     "RedSky Unavailable; HTTP %s; Product %s",
                     serverEx.getStatusCode(),
                     productId));
-        } catch (Exception ex) {
-            log.debug("Encountered unexpected exception: [{}]", ex.getMessage());
+        } catch (ResourceAccessException ioEx) {
+            log.debug("Encountered an I/O exception: [{}]", ioEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; %s; Product %s",
+                    ioEx.getMessage(),
+                    productId));
+        } catch (RestClientException clientEx) {
+            log.debug("Encountered a decoding exception: [{}]", clientEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; %s; Product %s",
+                    clientEx.getMessage(),
+                    productId));
+        }
+
+        RedSkyResponse body = response.getBody();
+        if (null == body || null == body.getProduct()) {
+            log.debug("Encountered a response without a product: [{}]", body);
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; Response without a product; Product %s",
+                    productId));
+        }
+        return Optional.of(body.getProduct());
+    }
+
+    private Map<Long, Optional<RedSkyProduct>> fetchAll(List<Long> productIds) throws RepositoryUnavailableException {
+        log.debug("Fetching products {} from RedSky in a batch", productIds);
+
+        // Unlike a single product, a client error fails the whole batch rather than marking its
+        // products unknown, since it says nothing about any one of them. Products missing from
+        // the batch response are the ones unknown to RedSky
+        URI uri = formatBatchUri(this.configuration, this.batchConfiguration, productIds);
+        RedSkyBatchResponse response;
+        try {
+            response = this.hedger.execute(() -> this.client.getForObject(uri, RedSkyBatchResponse.class));
+        } catch (HttpStatusCodeException statusEx) {
+            log.debug("Encountered a batch exception: [HTTP {}, {}]", statusEx.getStatusCode(), statusEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; HTTP %s; Products %s",
+                    statusEx.getStatusCode(),
+                    productIds));
+        } catch (RestClientException clientEx) {
+            log.debug("Encountered an I/O or decoding exception: [{}]", clientEx.getMessage());
+            throw new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; %s; Products %s",
+                    clientEx.getMessage(),
+                    productIds));
+        }
+
+        Map<Long, Optional<RedSkyProduct>> products = new HashMap<>();
+        for (Long productId : productIds) products.put(productId, Optional.empty());
+        if (null == response || null == response.getProducts()) return products;
+
+        for (RedSkyProduct product : response.getProducts()) {
+            Long productId = tcin(product);
+            if (products.containsKey(productId)) products.put(productId, Optional.of(product));
+        }
+        return products;
+    }
+
+    private static Long tcin(RedSkyProduct product) {
+        if (null == product || null == product.getItem() || null == product.getItem().getTcin()) return null;
+
+        try {
+            return Long.valueOf(product.getItem().getTcin());
+        } catch (NumberFormatException ex) {
+            log.debug("Ignoring a batched product with an invalid tcin: [{}]", product.getItem().getTcin());
+            return null;
         }
+    }
 
-        return Optional.empty();
+    static URI formatBatchUri(RedSkyConfiguration configuration, RedSkyBatchConfiguration batchConfiguration, List<Long> productIds) {
+        log.debug("Formatting RedSky batch URI for products {}", productIds);
+
+        URI uri = UriComponentsBuilder
+                .fromUriString(batchConfiguration.getUrl())
+                .queryParam("tcins", productIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .queryParam("excludes", configuration.getResponseExcludes())
+                .build()
+                .encode()
+                .toUri();
+
+        log.trace("Formatted RedSky batch URI {}", uri);
+        return uri;
     }
 
-    private URI formatUri(Long productId) {
+    static URI formatUri(RedSkyConfiguration configuration, Long productId) {
         log.debug("Formatting RedSky URI for product {}", productId);
 
         URI uri = UriComponentsBuilder
-                .fromUriString(this.configuration.getUrl())
+                .fromUriString(configuration.getUrl())
                 .path("/")
                 .path(productId.toString())
-                .queryParam("excludes", this.configuration.getResponseExcludes())
+                .queryParam("excludes", configuration.getResponseExcludes())
                 .build()
                 .encode()
                 .toUri();
@@ -0,0 +1,11 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.model.pricing.ProductPrice;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Profile("reactive")
+@Repository
+public interface ReactiveProductPrices extends ReactiveMongoRepository<ProductPrice, Long>, ReactiveProductPricesCustom {
+}
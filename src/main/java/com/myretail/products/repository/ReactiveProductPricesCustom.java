@@ -0,0 +1,16 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.model.pricing.ProductPrice;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductPricesCustom {
+
+    /**
+     * Saves a product price with a single atomic upsert, without blocking the calling thread.
+     *
+     * @param price The product price to save
+     * @return Indication of if the upsert resulted in an update or an insert
+     */
+    Mono<PriceSaveOperation> upsert(ProductPrice price);
+}
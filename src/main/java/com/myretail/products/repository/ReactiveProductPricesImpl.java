@@ -0,0 +1,32 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.model.pricing.ProductPrice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+@Slf4j
+public class ReactiveProductPricesImpl implements ReactiveProductPricesCustom {
+    private ReactiveMongoTemplate template;
+
+    public ReactiveProductPricesImpl(ReactiveMongoTemplate template) {
+        this.template = template;
+    }
+
+    @Override
+    public Mono<PriceSaveOperation> upsert(ProductPrice price) {
+        log.debug("Upserting product price {}", price);
+
+        return this.template.upsert(
+                Query.query(Criteria.where("productId").is(price.getProductId())),
+                Update.update("price", price.getPrice()).set("currency", price.getCurrency()),
+                ProductPrice.class)
+                .doOnNext(result -> log.trace("Upsert result: [{}]", result))
+                // Mongo only reports an upserted id when the upsert inserted a new document
+                .map(result -> null != result.getUpsertedId() ? PriceSaveOperation.CREATE : PriceSaveOperation.UPDATE);
+    }
+}
@@ -0,0 +1,138 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.cache.RedSkyProductCache;
+import com.myretail.products.configuration.RedSkyConfiguration;
+import com.myretail.products.configuration.RedSkyPoolConfiguration;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Slf4j
+@Profile("reactive")
+@Repository
+public class ReactiveProducts {
+    private RedSkyConfiguration configuration;
+    private WebClient client;
+    private RedSkyProductCache cache;
+    private CircuitBreaker circuitBreaker;
+    private StageTimers stages;
+    private Duration readTimeout;
+
+    public ReactiveProducts(RedSkyConfiguration configuration,
+                            RedSkyPoolConfiguration poolConfiguration,
+                            WebClient redSkyWebClient,
+                            RedSkyProductCache cache,
+                            CircuitBreaker circuitBreaker,
+                            StageTimers stages) {
+        this.configuration = configuration;
+        this.client = redSkyWebClient;
+        this.cache = cache;
+        this.circuitBreaker = circuitBreaker;
+        this.stages = stages;
+        this.readTimeout = poolConfiguration.getReadTimeout();
+    }
+
+    /***
+     * Retrieves a single product from the RedSky REST endpoint without blocking the calling
+     * thread. Results are cached and guarded by the circuit breaker just like the servlet mode's
+     * lookups; the fixed size of the connection pool bounds the concurrent requests to RedSky.
+     *
+     * @param productId The identifier of the product
+     * @return The product details associated with the input, or nothing if client errors are
+     * encountered (they are logged)
+     *
+     * @throws RepositoryUnavailableException Signalled if any server or I/O errors are encountered
+     * trying to leverage the RedSky REST endpoint, or while the circuit to RedSky is open
+     */
+    public Mono<RedSkyProduct> getOne(Long productId) {
+        log.debug("Reading product {} from RedSky repository", productId);
+
+        // Don't bother trying to make the REST call if the product ID is null
+        if (null == productId) return Mono.empty();
+
+        // Cache hits are timed apart from fetches (successful or not), the same as in the servlet mode
+        Optional<RedSkyProduct> cached = this.cache.getIfPresent(productId);
+        if (null != cached) {
+            log.trace("Cache hit for product {}", productId);
+            return this.stages.time(StageTimers.REDSKY, product -> StageTimers.HIT, Mono.justOrEmpty(cached));
+        }
+
+        Mono<Optional<RedSkyProduct>> fetch = Mono.defer(() -> this.guardedFetch(productId));
+        return this.stages.time(StageTimers.REDSKY, product -> product.isPresent() ? StageTimers.MISS : StageTimers.CLIENT_ERROR, fetch)
+                .doOnNext(product -> this.cache.put(productId, product))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Mono<Optional<RedSkyProduct>> guardedFetch(Long productId) {
+        if (!this.circuitBreaker.tryAcquirePermission()) {
+            log.debug("Circuit to RedSky is open");
+            return Mono.error(new RepositoryUnavailableException(String.format(
+                    "RedSky Unavailable; Circuit %s; Product %s",
+                    this.circuitBreaker.getState(),
+                    productId)));
+        }
+
+        // Only server and I/O errors count as RedSky failures, the same as in the servlet mode.
+        // A cancelled lookup (i.e. the client went away) is neither a success nor a failure
+        long start = System.nanoTime();
+        return this.fetch(productId)
+                .doOnSuccess(product -> this.circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .doOnError(ex -> this.circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, ex))
+                .doOnCancel(() -> this.circuitBreaker.releasePermission());
+    }
+
+    private Mono<Optional<RedSkyProduct>> fetch(Long productId) {
+        log.debug("Fetching product {} from RedSky", productId);
+
+        // Upon encountering client errors, log the issue and return an empty product. Upon
+        // encountering server errors, I/O errors (i.e. timeouts) or responses that can't be
+        // decoded, indicate that the repository is unavailable
+        return this.client.get()
+                .uri(Products.formatUri(this.configuration, productId))
+                .retrieve()
+                .bodyToMono(RedSkyResponse.class)
+                .timeout(this.readTimeout)
+                .flatMap(response -> Mono.justOrEmpty(response.getProduct()))
+                .map(Optional::of)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new RepositoryUnavailableException(String.format(
+                        "RedSky Unavailable; Response without a product; Product %s",
+                        productId)))))
+                .onErrorResume(ex -> {
+                    if (ex instanceof RepositoryUnavailableException) return Mono.error(ex);
+
+                    if (ex instanceof WebClientResponseException) {
+                        WebClientResponseException responseEx = (WebClientResponseException) ex;
+                        if (responseEx.getStatusCode().is4xxClientError()) {
+                            log.debug("Encountered a client exception: [HTTP {}, {}]", responseEx.getStatusCode(), responseEx.getMessage());
+                            return Mono.just(Optional.empty());
+                        }
+
+                        log.debug("Encountered a server exception: [HTTP {}, {}]", responseEx.getStatusCode(), responseEx.getMessage());
+                        return Mono.error(new RepositoryUnavailableException(String.format(
+                                "RedSky Unavailable; HTTP %s; Product %s",
+                                responseEx.getStatusCode(),
+                                productId)));
+                    }
+
+                    String message = ex instanceof TimeoutException ? "Read timed out" : ex.getMessage();
+                    log.debug("Encountered an I/O or decoding exception: [{}]", message);
+                    return Mono.error(new RepositoryUnavailableException(String.format(
+                            "RedSky Unavailable; %s; Product %s",
+                            message,
+                            productId)));
+                });
+    }
+}
@@ -0,0 +1,62 @@
+package com.myretail.products.service;
+
+import com.myretail.products.configuration.ExportConfiguration;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.response.Price;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.repository.ProductPrices;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class PriceExportService {
+    private ProductPrices prices;
+    private int batchSize;
+
+    public PriceExportService(ProductPrices prices, ExportConfiguration configuration) {
+        this.prices = prices;
+        this.batchSize = configuration.getBatchSize();
+    }
+
+    /**
+     * Exports every product price, in the same format as the price updates that can be ingested.
+     * Prices are read with a cursor and handed to the consumer a batch at a time; the next batch
+     * isn't read until the consumer is done with the current one, so a slow consumer slows down
+     * the export instead of having prices pile up in memory.
+     *
+     * @param products The consumer of the exported prices, a batch at a time
+     * @return The number of prices exported
+     */
+    public long export(Consumer<List<Product>> products) {
+        log.debug("Exporting all product prices in batches of {}", batchSize);
+
+        long count = 0;
+        try (CloseableIterator<ProductPrice> cursor = this.prices.streamAll(batchSize)) {
+            List<Product> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                ProductPrice price = cursor.next();
+                batch.add(new Product(price.getProductId(), null, new Price(price.getPrice(), price.getCurrency())));
+
+                if (batch.size() >= batchSize) {
+                    products.accept(batch);
+                    count += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                products.accept(batch);
+                count += batch.size();
+            }
+        }
+
+        log.debug("Exported {} product prices", count);
+        return count;
+    }
+}
@@ -0,0 +1,245 @@
+package com.myretail.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.cache.ProductResponseCache;
+import com.myretail.products.configuration.IngestionConfiguration;
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.construction.ProductPriceFactory;
+import com.myretail.products.exception.BadRequestException;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.response.PriceIngestionOutcome;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.repository.ProductPrices;
+import com.myretail.products.validation.RequestValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class PriceIngestionService {
+    private ProductPrices prices;
+    private ProductPriceCache priceCache;
+    private ProductResponseCache responseCache;
+    private RequestValidator validator;
+    private ObjectReader reader;
+    private int batchSize;
+    private int maxLineLength;
+
+    public PriceIngestionService(ProductPrices prices,
+                                 ProductPriceCache priceCache,
+                                 ProductResponseCache responseCache,
+                                 RequestValidator validator,
+                                 ObjectMapper mapper,
+                                 IngestionConfiguration configuration) {
+        this.prices = prices;
+        this.priceCache = priceCache;
+        this.responseCache = responseCache;
+        this.validator = validator;
+        this.reader = mapper.readerFor(Product.class);
+        this.batchSize = configuration.getBatchSize();
+        this.maxLineLength = configuration.getMaxLineLength();
+    }
+
+    /**
+     * Saves a stream of price updates, one JSON product per line (the same payload as a PUT, with
+     * the product id in the body). Each line is validated with the same rules as a PUT; the valid
+     * ones are saved in unordered bulk upserts of up to the configured batch size.
+     *
+     * Only one batch of lines is held in memory at a time: the outcome of every line of a batch is
+     * handed to the consumer as soon as the batch is saved, before the next lines are read. Lines
+     * longer than the configured maximum are rejected without being held in memory.
+     *
+     * @param updates  The price updates, one per line (blank lines are skipped)
+     * @param outcomes The consumer of the outcome of every line, a batch at a time in line order
+     * @throws IOException If the price updates can't be read
+     */
+    public void ingest(Reader updates, Consumer<List<PriceIngestionOutcome>> outcomes) throws IOException {
+        log.debug("Ingesting price updates in batches of {}", batchSize);
+        Batch batch = new Batch();
+        LineReader lines = new LineReader(updates, maxLineLength);
+
+        long lineNumber = 0;
+        String line;
+        while (null != (line = lines.next())) {
+            lineNumber++;
+            if (lines.isTooLong()) {
+                log.trace("Line {} rejected: longer than {} characters", lineNumber, maxLineLength);
+                batch.reject(lineNumber, "Price update longer than " + maxLineLength + " characters");
+                if (batch.isFull()) this.flush(batch, outcomes);
+                continue;
+            }
+            if (line.trim().isEmpty()) continue;
+
+            ProductPrice price;
+            try {
+                price = this.parse(line);
+            } catch (BadRequestException ex) {
+                log.trace("Line {} rejected: {}", lineNumber, ex.getMessage());
+                batch.reject(lineNumber, ex.getMessage());
+                if (batch.isFull()) this.flush(batch, outcomes);
+                continue;
+            }
+
+            // Unordered upserts of the same product could be applied in any order, so the pending
+            // updates are saved first to make the last update of the product the one that sticks
+            if (batch.contains(price.getProductId())) this.flush(batch, outcomes);
+            batch.accept(lineNumber, price);
+            if (batch.isFull()) this.flush(batch, outcomes);
+        }
+
+        this.flush(batch, outcomes);
+        log.debug("Ingested {} lines of price updates", lineNumber);
+    }
+
+    private ProductPrice parse(String line) throws BadRequestException {
+        Product product;
+        try {
+            product = this.reader.readValue(line);
+        } catch (JsonProcessingException ex) {
+            throw new BadRequestException("Malformed price update");
+        } catch (IOException ex) {
+            throw new BadRequestException("Unreadable price update");
+        }
+
+        this.validator.validate(null == product ? null : product.getId());
+        this.validator.validate(product);
+
+        return ProductPriceFactory.create(product.getId(), product);
+    }
+
+    private void flush(Batch batch, Consumer<List<PriceIngestionOutcome>> outcomes) {
+        if (batch.outcomes.isEmpty()) return;
+
+        log.debug("Saving {} price updates", batch.prices.size());
+        List<PriceSaveOperation> operations = this.prices.upsertAll(batch.prices);
+        for (int i = 0; i < operations.size(); i++) {
+            PriceIngestionOutcome outcome = batch.outcomes.get(batch.positions.get(i));
+            PriceSaveOperation operation = operations.get(i);
+            if (null == operation) {
+                outcome.setOutcome(PriceIngestionOutcome.REJECTED);
+                outcome.setMessage("Price could not be saved");
+            } else {
+                priceCache.put(batch.prices.get(i));
+                responseCache.invalidate(batch.prices.get(i).getProductId());
+                outcome.setOutcome(PriceSaveOperation.CREATE == operation
+                        ? PriceIngestionOutcome.CREATED
+                        : PriceIngestionOutcome.UPDATED);
+            }
+        }
+
+        outcomes.accept(batch.outcomes);
+        batch.clear();
+    }
+
+    private class Batch {
+        private List<PriceIngestionOutcome> outcomes = new ArrayList<>(batchSize);
+        private List<ProductPrice> prices = new ArrayList<>(batchSize);
+        private List<Integer> positions = new ArrayList<>(batchSize);
+        private Set<Long> productIds = new HashSet<>();
+
+        private void reject(long line, String message) {
+            this.outcomes.add(new PriceIngestionOutcome(line, null, PriceIngestionOutcome.REJECTED, message));
+        }
+
+        private void accept(long line, ProductPrice price) {
+            this.positions.add(this.outcomes.size());
+            this.outcomes.add(new PriceIngestionOutcome(line, price.getProductId(), null, null));
+            this.prices.add(price);
+            this.productIds.add(price.getProductId());
+        }
+
+        private boolean contains(Long productId) {
+            return this.productIds.contains(productId);
+        }
+
+        private boolean isFull() {
+            return this.outcomes.size() >= batchSize;
+        }
+
+        private void clear() {
+            // The saved prices and outcomes are handed off, so they're replaced rather than reused
+            this.outcomes = new ArrayList<>(batchSize);
+            this.prices = new ArrayList<>(batchSize);
+            this.positions.clear();
+            this.productIds.clear();
+        }
+    }
+
+    /**
+     * Reads lines of up to a maximum length. The characters of a longer line are skipped rather
+     * than buffered, so a single line can't take more memory than the maximum.
+     */
+    private static class LineReader {
+        private Reader in;
+        private int maxLength;
+        private char[] buffer = new char[8192];
+        private int position;
+        private int limit;
+        private StringBuilder line = new StringBuilder();
+        private boolean tooLong;
+
+        private LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return The next line without its terminator (empty if it's too long), or null at the
+         * end of the input
+         */
+        private String next() throws IOException {
+            this.line.setLength(0);
+            this.tooLong = false;
+            boolean read = false;
+
+            while (true) {
+                if (this.position == this.limit) {
+                    this.limit = Math.max(0, this.in.read(this.buffer, 0, this.buffer.length));
+                    this.position = 0;
+                    if (0 == this.limit) return read ? this.finish() : null;
+                }
+
+                read = true;
+                int start = this.position;
+                while (this.position < this.limit && '\n' != this.buffer[this.position]) this.position++;
+                this.append(start, this.position);
+
+                if (this.position < this.limit) {
+                    this.position++;
+                    return this.finish();
+                }
+            }
+        }
+
+        private boolean isTooLong() {
+            return this.tooLong;
+        }
+
+        private void append(int start, int end) {
+            if (this.tooLong) return;
+            if (this.line.length() + end - start > this.maxLength) {
+                this.tooLong = true;
+                this.line.setLength(0);
+                return;
+            }
+            this.line.append(this.buffer, start, end - start);
+        }
+
+        private String finish() {
+            int length = this.line.length();
+            if (length > 0 && '\r' == this.line.charAt(length - 1)) this.line.setLength(length - 1);
+            return this.line.toString();
+        }
+    }
+}
@@ -1,29 +1,62 @@
 package com.myretail.products.service;
 
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.cache.ProductResponseCache;
 import com.myretail.products.constants.PriceSaveOperation;
 import com.myretail.products.construction.ProductPriceFactory;
 import com.myretail.products.construction.ProductResponseBuilder;
 import com.myretail.products.exception.ProductNotFoundException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.PriceSaveResult;
 import com.myretail.products.model.pricing.ProductPrice;
 import com.myretail.products.model.redsky.RedSkyProduct;
 import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductError;
 import com.myretail.products.model.response.ProductResponse;
 import com.myretail.products.repository.ProductPrices;
 import com.myretail.products.repository.Products;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Service
 public class ProductService {
     private Products products;
     private ProductPrices prices;
+    private ProductPriceCache priceCache;
+    private ProductResponseCache responseCache;
+    private Executor redSkyExecutor;
+    private Executor pricesExecutor;
+    private StageTimers stages;
 
-    public ProductService(Products products, ProductPrices prices) {
+    public ProductService(Products products,
+                          ProductPrices prices,
+                          ProductPriceCache priceCache,
+                          ProductResponseCache responseCache,
+                          @Qualifier("redSkyExecutor") Executor redSkyExecutor,
+                          @Qualifier("pricesExecutor") Executor pricesExecutor,
+                          StageTimers stages) {
         this.products = products;
         this.prices = prices;
+        this.priceCache = priceCache;
+        this.responseCache = responseCache;
+        this.redSkyExecutor = redSkyExecutor;
+        this.pricesExecutor = pricesExecutor;
+        this.stages = stages;
     }
 
     /**
@@ -36,26 +69,149 @@ public class ProductService {
     public ProductResponse getProduct(Long productId) {
         log.debug("Orchestrating retrieval of product {} from upstream sources", productId);
 
+        // Fetch pricing details for the product while RedSky is consulted, so the latency of the
+        // operation is the slower of the two lookups rather than their sum. Cached prices don't
+        // need a trip to the executor at all. Not finding a record for the item is ok.
+        log.debug("Retrieving price details from cache or repository");
+        long start = stages.start();
+        ProductPrice cachedPrice = null == productId ? null : priceCache.getIfPresent(productId);
+        if (null != cachedPrice) stages.stop(StageTimers.PRICES_READ, StageTimers.HIT, start);
+        CompletableFuture<Optional<ProductPrice>> pricing = null != cachedPrice
+                ? CompletableFuture.completedFuture(Optional.of(cachedPrice))
+                : CompletableFuture.supplyAsync(() -> priceCache.load(productId, this::findPrice), pricesExecutor);
+
         // Fetch product details from RedSky. Since it's our source of truth for the product catalog,
-        // indicate that a product isn't found if a match wasn't acquired
+        // indicate that a product isn't found if a match wasn't acquired. The price lookup is
+        // cancelled (skipped if it hasn't started yet) since its result won't be used.
         log.debug("Retrieving product details from RedSky");
-        Optional<RedSkyProduct> product = products.getOne(productId);
+        Optional<RedSkyProduct> product;
+        try {
+            product = products.getOne(productId);
+        } catch (RuntimeException ex) {
+            pricing.cancel(false);
+            throw ex;
+        }
         if (!product.isPresent()) {
-            log.error("Product {} not found on RedSky", productId);
-            throw new ProductNotFoundException("No products found in catalog with id " + productId);
+            pricing.cancel(false);
+            throw notFound(productId);
         }
         log.trace("RedSky Product: [{}]", product);
 
-        // Fetch pricing details for the product. Not finding a record for the item is ok.
-        log.debug("Retrieving price details from repository");
-        Optional<ProductPrice> price = prices.findById(productId);
+        Optional<ProductPrice> price = join(pricing);
         log.trace("Pricing: [{}]", price);
 
         // Assemble the response given data from all the upstream sources to complete this operation
-        ProductResponse response = ProductResponseBuilder
-                .fromProduct(product.get())
-                .withPrice(price.orElse(null))
-                .build();
+        ProductResponse response = this.build(product.get(), price.orElse(null));
+        log.trace("Response: [{}]", response);
+
+        return response;
+    }
+
+    /**
+     * Assembles the details of a product from cached data only, without consulting any upstream
+     * source, i.e. to tell if a client's copy of the product is still current. The response is
+     * only assembled if both the RedSky product and its price are cached. The cache reads aren't
+     * counted as hits or misses, since a caller missing either goes on to call getProduct.
+     *
+     * @param productId The product's identifier
+     * @return A ProductResponse object with the product details, or null if they aren't all cached
+     */
+    public ProductResponse getCachedProduct(Long productId) {
+        Optional<RedSkyProduct> product = products.getCached(productId);
+        if (null == product || !product.isPresent()) return null;
+
+        ProductPrice price = priceCache.getIfPresentQuietly(productId);
+        if (null == price) return null;
+
+        return this.build(product.get(), price);
+    }
+
+    /**
+     * Orchestrates fetching details for a product whose price is already known (i.e. because it
+     * was just saved), so only RedSky has to be consulted.
+     *
+     * @param productId The product's identifier used to find it in RedSky
+     * @param price     The product's price
+     * @return A ProductResponse object with the relevant details and potentially errors populated
+     */
+    public ProductResponse getProduct(Long productId, ProductPrice price) {
+        log.debug("Orchestrating retrieval of product {} with price {} from upstream sources", productId, price);
+
+        log.debug("Retrieving product details from RedSky");
+        RedSkyProduct product = products.getOne(productId).orElseThrow(() -> notFound(productId));
+        log.trace("RedSky Product: [{}]", product);
+
+        ProductResponse response = this.build(product, price);
+        log.trace("Response: [{}]", response);
+
+        return response;
+    }
+
+    /**
+     * Orchestrates fetching details for a batch of products. RedSky lookups are fanned out on a
+     * bounded executor while the prices of the whole batch are read with a single round trip to
+     * the pricing repository. Products that can't be found (or fetched) are reported as errors
+     * for that product only, so that one missing product does not fail the whole batch.
+     *
+     * @param productIds The products' identifiers (duplicates are only looked up once)
+     * @return A ProductResponse object with every product found and an error for every one that wasn't
+     */
+    public ProductResponse getProducts(Collection<Long> productIds) {
+        log.debug("Orchestrating retrieval of products {} from upstream sources", productIds);
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+
+        // Start all the RedSky lookups before reading prices so that both happen at the same time
+        log.debug("Retrieving details of {} products from RedSky", uniqueIds.size());
+        Map<Long, CompletableFuture<Optional<RedSkyProduct>>> lookups = new LinkedHashMap<>();
+        for (Long productId : uniqueIds) {
+            lookups.put(productId, CompletableFuture.supplyAsync(() -> products.getOne(productId), redSkyExecutor));
+        }
+
+        // Only the prices that aren't cached are read from the repository
+        Map<Long, ProductPrice> pricing = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long productId : uniqueIds) {
+            ProductPrice price = null == productId ? null : priceCache.getIfPresent(productId);
+            if (null != price) pricing.put(productId, price);
+            else uncachedIds.add(productId);
+        }
+
+        if (!uncachedIds.isEmpty()) {
+            log.debug("Retrieving price details of {} products from repository", uncachedIds.size());
+            this.findPrices(uncachedIds).forEach(price -> {
+                pricing.put(price.getProductId(), price);
+                priceCache.fill(price);
+            });
+        }
+        log.trace("Pricing: [{}]", pricing);
+
+        // Assemble the response in the order the products were requested
+        ProductResponse response = new ProductResponse();
+        lookups.forEach((productId, lookup) -> {
+            Optional<RedSkyProduct> product;
+            try {
+                product = lookup.join();
+            } catch (CompletionException ex) {
+                log.error("Product {} could not be retrieved from RedSky: {}", productId, ex.getCause().getMessage());
+                response.getErrors().add(new ProductError(ProductError.REDSKY, String.format("Product %s unavailable", productId)));
+                return;
+            }
+
+            if (!product.isPresent()) {
+                log.error("Product {} not found on RedSky", productId);
+                response.getErrors().add(new ProductError(ProductError.REDSKY, String.format("Product %s not found", productId)));
+                return;
+            }
+
+            ProductPrice price = pricing.get(productId);
+            ProductResponseBuilder builder = ProductResponseBuilder.fromProduct(product.get());
+            if (null != price) {
+                builder.withPrice(price);
+            } else {
+                response.getErrors().add(new ProductError(ProductError.PRICING, String.format("Product %s not found", productId)));
+            }
+            response.getData().addAll(builder.build().getData());
+        });
         log.trace("Response: [{}]", response);
 
         return response;
@@ -67,21 +223,77 @@ public class ProductService {
      *
      * @param productId The id to update with the new price
      * @param product   The price value and currency details
-     * @return Indication of if the save operation resulted in an update or an insert
+     * @return Indication of if the save operation resulted in an update or an insert, along with
+     * the price that was saved
      */
-    public PriceSaveOperation saveProductPrice(Long productId, Product product) {
+    public PriceSaveResult saveProductPrice(Long productId, Product product) {
         log.debug("Orchestrating save of product price for product {}: {}", productId, product);
-        PriceSaveOperation operation = PriceSaveOperation.UPDATE;
 
-        if (!prices.existsById(productId)) {
-            log.info("Product {} not found in repository; Update operation to create", productId);
-            operation = PriceSaveOperation.CREATE;
+        // A single upsert both saves the price and tells if it already existed
+        ProductPrice price = ProductPriceFactory.create(productId, product);
+        PriceSaveOperation operation;
+        long start = stages.start();
+        try {
+            operation = prices.upsert(price);
+            stages.stop(StageTimers.PRICES_WRITE, StageTimers.SUCCESS, start);
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.PRICES_WRITE, ex, start);
+            throw ex;
         }
+        priceCache.put(price);
+        responseCache.invalidate(productId);
+        log.trace("Product price saved with a {} operation: [{}]", operation, price);
 
-        ProductPrice price = ProductPriceFactory.create(productId, product);
-        prices.save(price);
-        log.trace("Product price saved: [{}]", price);
+        return new PriceSaveResult(operation, price);
+    }
 
-        return operation;
+    private Optional<ProductPrice> findPrice(Long productId) {
+        long start = stages.start();
+        try {
+            Optional<ProductPrice> price = prices.findById(productId);
+            stages.stop(StageTimers.PRICES_READ, price.isPresent() ? StageTimers.SUCCESS : StageTimers.NOT_FOUND, start);
+            return price;
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.PRICES_READ, ex, start);
+            throw ex;
+        }
+    }
+
+    private Iterable<ProductPrice> findPrices(List<Long> productIds) {
+        long start = stages.start();
+        try {
+            Iterable<ProductPrice> found = prices.findAllById(productIds);
+            stages.stop(StageTimers.PRICES_READ, StageTimers.SUCCESS, start);
+            return found;
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.PRICES_READ, ex, start);
+            throw ex;
+        }
+    }
+
+    private ProductResponse build(RedSkyProduct product, ProductPrice price) {
+        long start = stages.start();
+        ProductResponse response = ProductResponseBuilder
+                .fromProduct(product)
+                .withPrice(price)
+                .build();
+        stages.stop(StageTimers.BUILD, StageTimers.SUCCESS, start);
+
+        return response;
+    }
+
+    private static ProductNotFoundException notFound(Long productId) {
+        log.error("Product {} not found on RedSky", productId);
+        return new ProductNotFoundException("No products found in catalog with id " + productId);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            // Rethrow what the lookup threw as if it had run on the calling thread
+            if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
     }
 }
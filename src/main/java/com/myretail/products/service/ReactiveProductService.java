@@ -0,0 +1,207 @@
+package com.myretail.products.service;
+
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.configuration.RedSkyPoolConfiguration;
+import com.myretail.products.construction.ProductPriceFactory;
+import com.myretail.products.construction.ProductResponseBuilder;
+import com.myretail.products.exception.ProductNotFoundException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.PriceSaveResult;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import com.myretail.products.repository.ReactiveProductPrices;
+import com.myretail.products.repository.ReactiveProducts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Slf4j
+@Profile("reactive")
+@Service
+public class ReactiveProductService {
+    private ReactiveProducts products;
+    private ReactiveProductPrices prices;
+    private ProductPriceCache priceCache;
+    private StageTimers stages;
+    private int concurrency;
+
+    public ReactiveProductService(ReactiveProducts products,
+                                  ReactiveProductPrices prices,
+                                  ProductPriceCache priceCache,
+                                  StageTimers stages,
+                                  RedSkyPoolConfiguration poolConfiguration) {
+        this.products = products;
+        this.prices = prices;
+        this.priceCache = priceCache;
+        this.stages = stages;
+        this.concurrency = poolConfiguration.getMaxConnections();
+    }
+
+    /**
+     * Orchestrates fetching details from the various repositories/sources for a product. Both
+     * lookups are in flight at the same time; if RedSky doesn't know the product, the price
+     * lookup is cancelled.
+     *
+     * @param productId The product's identifier used to find it in all repositories
+     * @return A ProductResponse object with the relevant details and potentially errors populated
+     */
+    public Mono<ProductResponse> getProduct(Long productId) {
+        log.debug("Orchestrating retrieval of product {} from upstream sources", productId);
+
+        // Not finding a pricing record for the item is ok
+        ProductPrice cachedPrice = null == productId ? null : priceCache.getIfPresent(productId);
+        Mono<Optional<ProductPrice>> pricing = null != cachedPrice
+                ? stages.time(StageTimers.PRICES_READ, price -> StageTimers.HIT, Mono.just(Optional.of(cachedPrice)))
+                : stages.time(StageTimers.PRICES_READ, price -> null != price ? StageTimers.SUCCESS : StageTimers.NOT_FOUND, prices.findById(productId))
+                        .doOnNext(priceCache::fill)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty());
+
+        return products.getOne(productId)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(notFound(productId))))
+                .zipWith(pricing, (product, price) -> ProductResponseBuilder
+                        .fromProduct(product)
+                        .withPrice(price.orElse(null))
+                        .build())
+                .doOnNext(response -> log.trace("Response: [{}]", response));
+    }
+
+    /**
+     * Orchestrates fetching details for a product whose price is already known (i.e. because it
+     * was just saved), so only RedSky has to be consulted.
+     *
+     * @param productId The product's identifier used to find it in RedSky
+     * @param price     The product's price
+     * @return A ProductResponse object with the relevant details and potentially errors populated
+     */
+    public Mono<ProductResponse> getProduct(Long productId, ProductPrice price) {
+        log.debug("Orchestrating retrieval of product {} with price {} from upstream sources", productId, price);
+
+        return products.getOne(productId)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(notFound(productId))))
+                .map(product -> ProductResponseBuilder
+                        .fromProduct(product)
+                        .withPrice(price)
+                        .build())
+                .doOnNext(response -> log.trace("Response: [{}]", response));
+    }
+
+    /**
+     * Orchestrates fetching details for a batch of products. RedSky lookups are bounded by the
+     * size of the RedSky connection pool while the prices of the whole batch are read with a
+     * single query. Products that can't be found (or fetched) are reported as errors for that
+     * product only, so that one missing product does not fail the whole batch.
+     *
+     * @param productIds The products' identifiers (duplicates are only looked up once)
+     * @return A ProductResponse object with every product found and an error for every one that wasn't
+     */
+    public Mono<ProductResponse> getProducts(Collection<Long> productIds) {
+        log.debug("Orchestrating retrieval of products {} from upstream sources", productIds);
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+
+        // Lookups complete in any order but are collected in the order the products were requested
+        Mono<List<Lookup>> lookups = Flux.fromIterable(uniqueIds)
+                .flatMapSequential(productId -> products.getOne(productId)
+                        .map(product -> new Lookup(productId, product, null))
+                        .defaultIfEmpty(new Lookup(productId, null, null))
+                        .onErrorResume(ex -> Mono.just(new Lookup(productId, null, ex))), concurrency)
+                .collectList();
+
+        // Only the prices that aren't cached are read from the repository
+        Map<Long, ProductPrice> cachedPrices = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        for (Long productId : uniqueIds) {
+            ProductPrice price = null == productId ? null : priceCache.getIfPresent(productId);
+            if (null != price) cachedPrices.put(productId, price);
+            else uncachedIds.add(productId);
+        }
+        Flux<ProductPrice> found = uncachedIds.isEmpty()
+                ? Flux.empty()
+                : stages.time(StageTimers.PRICES_READ, read -> StageTimers.SUCCESS, prices.findAllById(uncachedIds).collectList())
+                        .flatMapIterable(read -> read);
+        Mono<Map<Long, ProductPrice>> pricing = found
+                .doOnNext(priceCache::fill)
+                .collect(() -> new HashMap<>(cachedPrices), (all, price) -> all.put(price.getProductId(), price));
+
+        return Mono.zip(lookups, pricing, ReactiveProductService::assemble)
+                .doOnNext(response -> log.trace("Response: [{}]", response));
+    }
+
+    /**
+     * Orchestrates saving pricing details of a product. Any other attributes provided (i.e. description)
+     * are ignored for the purposes of this operation. Only price value and currency code are saved
+     *
+     * @param productId The id to update with the new price
+     * @param product   The price value and currency details
+     * @return Indication of if the save operation resulted in an update or an insert, along with
+     * the price that was saved
+     */
+    public Mono<PriceSaveResult> saveProductPrice(Long productId, Product product) {
+        log.debug("Orchestrating save of product price for product {}: {}", productId, product);
+
+        ProductPrice price = ProductPriceFactory.create(productId, product);
+        return stages.time(StageTimers.PRICES_WRITE, operation -> StageTimers.SUCCESS, prices.upsert(price))
+                .doOnNext(operation -> priceCache.put(price))
+                .doOnNext(operation -> log.trace("Product price saved with a {} operation: [{}]", operation, price))
+                .map(operation -> new PriceSaveResult(operation, price));
+    }
+
+    private static ProductResponse assemble(List<Lookup> lookups, Map<Long, ProductPrice> pricing) {
+        ProductResponse response = new ProductResponse();
+        for (Lookup lookup : lookups) {
+            if (null != lookup.error) {
+                log.error("Product {} could not be retrieved from RedSky: {}", lookup.productId, lookup.error.getMessage());
+                response.getErrors().add(new ProductError(ProductError.REDSKY, String.format("Product %s unavailable", lookup.productId)));
+                continue;
+            }
+
+            if (null == lookup.product) {
+                log.error("Product {} not found on RedSky", lookup.productId);
+                response.getErrors().add(new ProductError(ProductError.REDSKY, String.format("Product %s not found", lookup.productId)));
+                continue;
+            }
+
+            ProductPrice price = pricing.get(lookup.productId);
+            ProductResponseBuilder builder = ProductResponseBuilder.fromProduct(lookup.product);
+            if (null != price) {
+                builder.withPrice(price);
+            } else {
+                response.getErrors().add(new ProductError(ProductError.PRICING, String.format("Product %s not found", lookup.productId)));
+            }
+            response.getData().addAll(builder.build().getData());
+        }
+
+        return response;
+    }
+
+    private static ProductNotFoundException notFound(Long productId) {
+        log.error("Product {} not found on RedSky", productId);
+        return new ProductNotFoundException("No products found in catalog with id " + productId);
+    }
+
+    private static class Lookup {
+        private Long productId;
+        private RedSkyProduct product;
+        private Throwable error;
+
+        private Lookup(Long productId, RedSkyProduct product, Throwable error) {
+            this.productId = productId;
+            this.product = product;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Runner to load the currency codes on startup (after the mock data is in), so that the first
+// price updates served by the service are validated without a round trip to the repository.
+// Failures are not fatal since the codes will be loaded on demand anyways.
+@Slf4j
+@Order(2)
+@Component
+public class LoadCurrencyCodes implements ApplicationRunner {
+
+    private CurrencyCodeRegistry registry;
+
+    public LoadCurrencyCodes(CurrencyCodeRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            log.info("Loaded {} currency codes", this.registry.refresh().size());
+        } catch (Exception ex) {
+            log.warn("Unable to load the currency codes: [{}]", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+// Loads the currency codes before the reactive server starts serving, rather than in a runner once
+// it has (see LoadCurrencyCodes). Prices are validated on the event loop in the reactive mode, which
+// must never load the codes on demand from the blocking repository, so failures are fatal.
+@Slf4j
+@Profile("reactive")
+@Component
+public class PreloadCurrencyCodes implements InitializingBean {
+
+    private CurrencyCodeRegistry registry;
+
+    public PreloadCurrencyCodes(CurrencyCodeRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        log.info("Preloaded {} currency codes", this.registry.refresh().size());
+    }
+}
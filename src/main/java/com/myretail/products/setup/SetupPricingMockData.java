@@ -7,12 +7,14 @@ import com.myretail.products.repository.ProductPrices;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 // Runner to load the embedded mongo database with some seed data for pricing. This is useful
 // for the POC, but can be deleted when deploying this service against an independent mongo instance
 // that has pricing information loaded from an external source.
 @Slf4j
+@Order(1)
 @Component
 public class SetupPricingMockData implements ApplicationRunner {
 
@@ -39,7 +41,7 @@ public class SetupPricingMockData implements ApplicationRunner {
         currencyCodes.save(new CurrencyCode("EUR"));
         currencyCodes.save(new CurrencyCode("INR"));
 
-        log.debug("Initialized the embedded mongodb instance with {} product prices", prices.findAll().size());
-        log.debug("Initialized the embedded mongodb instance with {} currency codes", currencyCodes.findAll().size());
+        log.debug("Initialized the embedded mongodb instance with {} product prices", prices.count());
+        log.debug("Initialized the embedded mongodb instance with {} currency codes", currencyCodes.count());
     }
 }
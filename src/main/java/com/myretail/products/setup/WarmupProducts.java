@@ -0,0 +1,188 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.configuration.WarmupConfiguration;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.repository.ProductPrices;
+import com.myretail.products.repository.Products;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runner to preload the hot products into the RedSky product cache and the price cache once
+// the pricing data is loaded, so the first minutes of traffic after a deploy aren't all misses.
+// The service reports itself as out of service until the warm-up completes or runs out of time.
+@Slf4j
+@Order(3)
+@Component
+public class WarmupProducts implements ApplicationRunner, HealthIndicator {
+
+    private WarmupConfiguration configuration;
+    private Products products;
+    private ProductPrices prices;
+    private ProductPriceCache priceCache;
+    private Executor executor;
+    private MeterRegistry registry;
+    private volatile Health health = Health.outOfService().withDetail("phase", "pending").build();
+    private volatile double redSkyCoverage;
+    private volatile double pricingCoverage;
+
+    public WarmupProducts(WarmupConfiguration configuration,
+                          Products products,
+                          ProductPrices prices,
+                          ProductPriceCache priceCache,
+                          @Qualifier("redSkyExecutor") Executor redSkyExecutor,
+                          MeterRegistry registry) {
+        this.configuration = configuration;
+        this.products = products;
+        this.prices = prices;
+        this.priceCache = priceCache;
+        this.executor = redSkyExecutor;
+        this.registry = registry;
+
+        // Share of the hot products that made it into the RedSky cache and that have a price
+        Gauge.builder("warmup.coverage", this, warmup -> warmup.redSkyCoverage)
+                .tag("source", "redsky")
+                .register(registry);
+        Gauge.builder("warmup.coverage", this, warmup -> warmup.pricingCoverage)
+                .tag("source", "pricing")
+                .register(registry);
+    }
+
+    @Override
+    public Health health() {
+        return this.health;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!configuration.isEnabled()) {
+            this.health = Health.up().withDetail("phase", "disabled").build();
+            return;
+        }
+
+        this.health = Health.outOfService().withDetail("phase", "warming").build();
+        long start = System.nanoTime();
+        long deadline = start + configuration.getTimeBudget().toNanos();
+
+        List<Long> productIds = this.hotProductIds();
+        log.info("Warming up {} products", productIds.size());
+
+        // The RedSky lookups are spread over the RedSky executor, which bounds how many are in
+        // flight, while the prices are read in batches on this thread
+        AtomicInteger cached = new AtomicInteger();
+        List<CompletableFuture<Void>> lookups = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            lookups.add(CompletableFuture.runAsync(() -> this.warm(productId, deadline, cached), executor));
+        }
+        int priced = this.readPrices(productIds, deadline);
+
+        boolean timedOut = false;
+        try {
+            CompletableFuture.allOf(lookups.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // The lookups that haven't started yet will skip themselves
+            timedOut = true;
+        } catch (ExecutionException ex) {
+            log.warn("Warm-up lookup failed: [{}]", ex.getCause().getMessage());
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        timedOut |= System.nanoTime() > deadline;
+
+        this.report(productIds.size(), cached.get(), priced, duration, timedOut);
+    }
+
+    private List<Long> hotProductIds() throws IOException {
+        List<Long> productIds = new ArrayList<>();
+
+        if (null != configuration.getProductIds()) {
+            try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                    configuration.getProductIds().getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while (productIds.size() < configuration.getMaxProducts() && null != (line = lines.readLine())) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    try {
+                        productIds.add(Long.valueOf(line));
+                    } catch (NumberFormatException ex) {
+                        log.warn("Skipping invalid product id in warm-up list: [{}]", line);
+                    }
+                }
+            }
+            return productIds;
+        }
+
+        try (CloseableIterator<ProductPrice> cursor = prices.streamAll(configuration.getBatchSize())) {
+            while (productIds.size() < configuration.getMaxProducts() && cursor.hasNext()) {
+                productIds.add(cursor.next().getProductId());
+            }
+        }
+        return productIds;
+    }
+
+    private void warm(Long productId, long deadline, AtomicInteger cached) {
+        if (System.nanoTime() > deadline) return;
+
+        try {
+            if (products.getOne(productId).isPresent()) cached.incrementAndGet();
+        } catch (Exception ex) {
+            log.debug("Unable to warm up product {}: [{}]", productId, ex.getMessage());
+        }
+    }
+
+    private int readPrices(List<Long> productIds, long deadline) {
+        int priced = 0;
+        for (int from = 0; from < productIds.size() && System.nanoTime() <= deadline; from += configuration.getBatchSize()) {
+            List<Long> batch = productIds.subList(from, Math.min(productIds.size(), from + configuration.getBatchSize()));
+            try {
+                for (ProductPrice price : prices.findAllById(batch)) {
+                    priceCache.put(price);
+                    priced++;
+                }
+            } catch (Exception ex) {
+                log.debug("Unable to warm up prices of products {}: [{}]", batch, ex.getMessage());
+            }
+        }
+        return priced;
+    }
+
+    private void report(int total, int cached, int priced, Duration duration, boolean timedOut) {
+        this.redSkyCoverage = 0 == total ? 1.0 : (double) cached / total;
+        this.pricingCoverage = 0 == total ? 1.0 : (double) priced / total;
+        log.info("Warmed up {} of {} products from RedSky and {} prices in {} ms{}",
+                cached, total, priced, duration.toMillis(), timedOut ? " (time budget exceeded)" : "");
+
+        registry.timer("warmup.duration").record(duration);
+
+        this.health = Health.up()
+                .withDetail("phase", timedOut ? "timed out" : "complete")
+                .withDetail("products", total)
+                .withDetail("redsky", cached)
+                .withDetail("pricing", priced)
+                .withDetail("duration", duration.toMillis())
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.configuration.RedSkyConfiguration;
+import com.myretail.products.configuration.RedSkyPoolConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Runner to open a few connections to RedSky on startup, so that the first requests served by the
+// service don't have to pay for connection (and TLS) setup. Failures are not fatal since the
+// connections will be opened on demand anyways.
+@Slf4j
+@Order(2)
+@Component
+public class WarmupRedSkyConnections implements ApplicationRunner {
+
+    private RedSkyConfiguration configuration;
+    private RedSkyPoolConfiguration poolConfiguration;
+    private CloseableHttpClient client;
+
+    public WarmupRedSkyConnections(RedSkyConfiguration configuration,
+                                   RedSkyPoolConfiguration poolConfiguration,
+                                   CloseableHttpClient redSkyHttpClient) {
+        this.configuration = configuration;
+        this.poolConfiguration = poolConfiguration;
+        this.client = redSkyHttpClient;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int connections = poolConfiguration.getWarmupConnections();
+        if (connections <= 0) return;
+
+        log.info("Warming up {} connections to RedSky", connections);
+
+        // The requests have to be in flight at the same time for the pool to open distinct
+        // connections; each connection goes back to the pool once its response is closed
+        ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            List<CompletableFuture<Void>> requests = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                requests.add(CompletableFuture.runAsync(this::open, executor));
+            }
+            CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void open() {
+        try (CloseableHttpResponse response = client.execute(new HttpHead(configuration.getUrl()))) {
+            log.debug("Warmed up a connection to RedSky: [HTTP {}]", response.getStatusLine().getStatusCode());
+        } catch (Exception ex) {
+            log.warn("Unable to warm up a connection to RedSky: [{}]", ex.getMessage());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.myretail.products.validation;
 
 import com.myretail.products.model.response.Product;
 
+import java.util.Collection;
 import java.util.function.Predicate;
 
 public class RequestPredicates {
@@ -14,4 +15,8 @@ public class RequestPredicates {
         return p -> (null != p && null!= p.getPrice() && p.getPrice().getValue() >= 0);
     }
 
+    public static Predicate<Collection<Long>> isValidBatchSize(int maxSize) {
+        return p -> (null != p && !p.isEmpty() && p.size() <= maxSize);
+    }
+
 }
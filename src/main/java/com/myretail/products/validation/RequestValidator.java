@@ -1,21 +1,62 @@
 package com.myretail.products.validation;
 
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.configuration.BatchConfiguration;
 import com.myretail.products.exception.BadRequestException;
+import com.myretail.products.metrics.StageTimers;
 import com.myretail.products.model.response.Product;
-import com.myretail.products.repository.CurrencyCodes;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+
 @Slf4j
 @Component
 public class RequestValidator {
-    private CurrencyCodes currencyCodes;
+    private CurrencyCodeRegistry currencyCodes;
+    private BatchConfiguration batchConfiguration;
+    private StageTimers stages;
 
-    public RequestValidator(CurrencyCodes currencyCodes) {
+    public RequestValidator(CurrencyCodeRegistry currencyCodes, BatchConfiguration batchConfiguration, StageTimers stages) {
         this.currencyCodes = currencyCodes;
+        this.batchConfiguration = batchConfiguration;
+        this.stages = stages;
     }
 
     public void validate(Long productId) {
+        long start = stages.start();
+        try {
+            this.check(productId);
+            stages.stop(StageTimers.VALIDATION, StageTimers.SUCCESS, start);
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.VALIDATION, ex, start);
+            throw ex;
+        }
+    }
+
+    public void validate(Collection<Long> productIds) {
+        long start = stages.start();
+        try {
+            this.check(productIds);
+            stages.stop(StageTimers.VALIDATION, StageTimers.SUCCESS, start);
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.VALIDATION, ex, start);
+            throw ex;
+        }
+    }
+
+    public void validate(Product product) {
+        long start = stages.start();
+        try {
+            this.check(product);
+            stages.stop(StageTimers.VALIDATION, StageTimers.SUCCESS, start);
+        } catch (RuntimeException ex) {
+            stages.stop(StageTimers.VALIDATION, ex, start);
+            throw ex;
+        }
+    }
+
+    private void check(Long productId) {
         log.debug("Validating product id {}", productId);
         if (!RequestPredicates.isValidProductId().test(productId)) {
             log.trace("Product ID {} is not valid");
@@ -23,7 +64,19 @@ public class RequestValidator {
         }
     }
 
-    public void validate(Product product) {
+    private void check(Collection<Long> productIds) {
+        log.debug("Validating product ids {}", productIds);
+        if (!RequestPredicates.isValidBatchSize(batchConfiguration.getMaxSize()).test(productIds)) {
+            log.trace("Product IDs {} are not valid; Batch size out of range", productIds);
+            throw new BadRequestException(String.format(
+                    "Between 1 and %s product ids must be provided",
+                    batchConfiguration.getMaxSize()));
+        }
+
+        productIds.forEach(this::check);
+    }
+
+    private void check(Product product) {
         log.debug("Validating product request {}", product);
 
         if (null == product || null == product.getPrice()) {
@@ -37,7 +90,7 @@ public class RequestValidator {
         }
 
         if(null == product.getPrice().getCurrencyCode() ||
-                !currencyCodes.existsById(product.getPrice().getCurrencyCode().toUpperCase())) {
+                !currencyCodes.contains(product.getPrice().getCurrencyCode().toUpperCase())) {
             log.trace("Product {} is not valid; Unknown currency code", product);
             throw new BadRequestException("Price currency code is unknown");
         }
@@ -1,7 +1,10 @@
 package com.myretail.products;
 
+import com.myretail.products.constants.MediaTypes;
+import com.myretail.products.constants.PriceSaveOperation;
 import com.myretail.products.model.pricing.ProductPrice;
 import com.myretail.products.model.redsky.RedSkyResponse;
+import com.myretail.products.model.request.ProductQuery;
 import com.myretail.products.model.response.Product;
 import com.myretail.products.model.response.ProductError;
 import com.myretail.products.model.response.ProductResponse;
@@ -12,24 +15,41 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.util.CloseableIterator;
 import org.springframework.http.*;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "redsky.cache.enabled=false",
+                "redsky.pool.warmup-connections=0",
+                "products.warmup.enabled=false",
+                "prices.cache.enabled=false",
+                "products.response-cache.enabled=false",
+                "spring.mvc.async.request-timeout=1s"
+        })
 public class IntegrationTests {
 
     @Autowired
@@ -68,6 +88,40 @@ public class IntegrationTests {
         assertThat(actual.getErrors().size()).isEqualTo(0);
     }
 
+    @Test
+    public void get_CurrentCopy_304WithoutBody() {
+        /* Given */
+        long productId = 123456789L;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
+
+        when(prices.findById(productId)).thenReturn(Optional.of(MockData.validPriceResponse()));
+
+        ResponseEntity<ProductResponse> first = client.exchange(
+                "/products/" + productId,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductResponse.class);
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+
+        /* When */
+        ResponseEntity<ProductResponse> result = client.exchange(
+                "/products/" + productId,
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductResponse.class);
+
+        /* Then */
+        assertThat(first.getHeaders().getETag()).isNotEmpty();
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(result.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+        assertThat(result.getBody()).isNull();
+    }
+
     @Test
     public void get_UnknownByRedsky_404() {
         /* Given */
@@ -137,6 +191,52 @@ public class IntegrationTests {
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_IMPLEMENTED);
     }
 
+    @Test
+    public void get_MultipleProductIdsPartiallyKnownByPricing_PartialResponse200() {
+        /* Given */
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
+
+        when(prices.findAllById(any())).thenReturn(Collections.singletonList(MockData.validPriceResponse()));
+
+        /* When */
+        ResponseEntity<ProductResponse> result = client.exchange(
+                "/products?ids=123456789,987654321",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductResponse.class);
+
+        /* Then */
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        ProductResponse actual = result.getBody();
+        assertThat(actual.getData().size()).isEqualTo(2);
+        assertThat(actual.getErrors().size()).isEqualTo(1);
+    }
+
+    @Test
+    public void query_TooManyProductIds_400() {
+        /* Given */
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<ProductQuery> request = new HttpEntity<>(
+                new ProductQuery(LongStream.range(0, 101).boxed().collect(Collectors.toList())),
+                headers);
+
+        /* When */
+        ResponseEntity<ProductResponse> result = client.exchange(
+                "/products/query",
+                HttpMethod.POST,
+                request,
+                ProductResponse.class);
+
+        /* Then */
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     public void get_StringProductId_400() {
         /* Given */
@@ -211,6 +311,40 @@ public class IntegrationTests {
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @Test
+    public void get_SlowerThanRequestTimeout_503() {
+        /* Given */
+        long productId = 123456789L;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
+
+        // The price read is held until the response is in, so the request can only time out
+        CountDownLatch released = new CountDownLatch(1);
+        when(prices.findById(productId)).thenAnswer(invocation -> {
+            released.await(30, TimeUnit.SECONDS);
+            return Optional.of(MockData.validPriceResponse());
+        });
+
+        /* When */
+        ResponseEntity<ProductResponse> result;
+        try {
+            result = client.exchange(
+                    "/products/" + productId,
+                    HttpMethod.GET,
+                    new HttpEntity<>(headers),
+                    ProductResponse.class);
+        } finally {
+            released.countDown();
+        }
+
+        /* Then */
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @Test
     public void put_ValidPriceUpdate_200() {
         /* Given */
@@ -229,7 +363,7 @@ public class IntegrationTests {
         ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
         when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
 
-        when(prices.existsById(any())).thenReturn(true);
+        when(prices.upsert(any())).thenReturn(PriceSaveOperation.UPDATE);
 
         /* When */
         ResponseEntity<ProductResponse> result = client.exchange(
@@ -240,7 +374,7 @@ public class IntegrationTests {
 
         /* Then */
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
-        verify(prices, times(1)).save(expected);
+        verify(prices, times(1)).upsert(expected);
     }
 
     @Test
@@ -261,7 +395,7 @@ public class IntegrationTests {
         ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
         when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
 
-        when(prices.existsById(any())).thenReturn(false);
+        when(prices.upsert(any())).thenReturn(PriceSaveOperation.CREATE);
 
         /* When */
         ResponseEntity<ProductResponse> result = client.exchange(
@@ -272,7 +406,7 @@ public class IntegrationTests {
 
         /* Then */
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.CREATED);
-        verify(prices, times(1)).save(expected);
+        verify(prices, times(1)).upsert(expected);
     }
 
     @Test
@@ -294,7 +428,7 @@ public class IntegrationTests {
         ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
         when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
 
-        when(prices.existsById(any())).thenReturn(true);
+        when(prices.upsert(any())).thenReturn(PriceSaveOperation.UPDATE);
 
         /* When */
         ResponseEntity<ProductResponse> result = client.exchange(
@@ -305,7 +439,7 @@ public class IntegrationTests {
 
         /* Then */
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
-        verify(prices, times(1)).save(expected);
+        verify(prices, times(1)).upsert(expected);
     }
 
     @Test
@@ -327,7 +461,7 @@ public class IntegrationTests {
         ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
         when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
 
-        when(prices.existsById(any())).thenReturn(true);
+        when(prices.upsert(any())).thenReturn(PriceSaveOperation.UPDATE);
 
         /* When */
         ResponseEntity<ProductResponse> result = client.exchange(
@@ -338,7 +472,7 @@ public class IntegrationTests {
 
         /* Then */
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
-        verify(prices, times(1)).save(expected);
+        verify(prices, times(1)).upsert(expected);
     }
 
     @Test
@@ -405,4 +539,70 @@ public class IntegrationTests {
         /* Then */
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
     }
+
+    @Test
+    public void ingest_ValidAndInvalidPriceUpdates_OutcomePerLine200() {
+        /* Given */
+        String body = "{\"id\":123456789,\"current_price\":{\"value\":39.99,\"currency_code\":\"USD\"}}\n" +
+                "{\"id\":-1,\"current_price\":{\"value\":39.99,\"currency_code\":\"USD\"}}\n";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.valueOf(MediaTypes.APPLICATION_NDJSON_VALUE));
+        HttpEntity<String> request = new HttpEntity<>(body, headers);
+
+        when(prices.upsertAll(any())).thenReturn(Collections.singletonList(PriceSaveOperation.CREATE));
+
+        /* When */
+        ResponseEntity<String> result = client.exchange(
+                "/products/prices",
+                HttpMethod.POST,
+                request,
+                String.class);
+
+        /* Then */
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody()).isEqualTo(
+                "{\"line\":1,\"id\":123456789,\"outcome\":\"created\"}\n" +
+                "{\"line\":2,\"outcome\":\"rejected\",\"message\":\"A valid product id greater than or equal to 0 must be provided\"}\n");
+        verify(prices, times(1)).upsertAll(Collections.singletonList(new ProductPrice(123456789L, 39.99F, "USD")));
+    }
+
+    @Test
+    public void export_AllPrices_OnePricePerLine200() {
+        /* Given */
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(MediaType.valueOf(MediaTypes.APPLICATION_NDJSON_VALUE)));
+
+        Iterator<ProductPrice> iterator = Arrays.asList(
+                new ProductPrice(123456789L, 49.99F, "USD"),
+                new ProductPrice(987654321L, 10.0F, "EUR")).iterator();
+        when(prices.streamAll(anyInt())).thenReturn(new CloseableIterator<ProductPrice>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public ProductPrice next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        /* When */
+        ResponseEntity<String> result = client.exchange(
+                "/products/prices",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                String.class);
+
+        /* Then */
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody()).isEqualTo(
+                "{\"id\":123456789,\"current_price\":{\"value\":49.99,\"currency_code\":\"USD\"}}\n" +
+                "{\"id\":987654321,\"current_price\":{\"value\":10.0,\"currency_code\":\"EUR\"}}\n");
+    }
 }
@@ -0,0 +1,75 @@
+package com.myretail.products.cache;
+
+import com.myretail.products.model.pricing.CurrencyCode;
+import com.myretail.products.repository.CurrencyCodes;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CurrencyCodeRegistryTests {
+
+    @Mock
+    private CurrencyCodes currencyCodes;
+
+    private CurrencyCodeRegistry registry;
+
+    @Before
+    public void initialize() {
+        registry = new CurrencyCodeRegistry(currencyCodes);
+    }
+
+    @Test
+    public void contains_KnownCodes_ReturnsTrueLoadingOnce() {
+        /* Given */
+        when(currencyCodes.findAll()).thenReturn(Arrays.asList(new CurrencyCode("USD"), new CurrencyCode("EUR")));
+
+        /* When */
+        boolean usd = registry.contains("USD");
+        boolean eur = registry.contains("EUR");
+
+        /* Then */
+        assertThat(usd).isTrue();
+        assertThat(eur).isTrue();
+        verify(currencyCodes, times(1)).findAll();
+    }
+
+    @Test
+    public void contains_UnknownCode_ReturnsFalse() {
+        /* Given */
+        when(currencyCodes.findAll()).thenReturn(Collections.singletonList(new CurrencyCode("USD")));
+
+        /* When */
+        boolean result = registry.contains("AAA");
+
+        /* Then */
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    public void contains_CodeAddedAfterRefresh_ReturnsTrue() {
+        /* Given */
+        when(currencyCodes.findAll())
+                .thenReturn(Collections.singletonList(new CurrencyCode("USD")))
+                .thenReturn(Arrays.asList(new CurrencyCode("USD"), new CurrencyCode("INR")));
+        boolean before = registry.contains("INR");
+
+        /* When */
+        registry.refresh();
+        boolean result = registry.contains("INR");
+
+        /* Then */
+        assertThat(before).isFalse();
+        assertThat(result).isTrue();
+    }
+}
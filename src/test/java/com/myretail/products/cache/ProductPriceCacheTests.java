@@ -0,0 +1,245 @@
+package com.myretail.products.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.model.pricing.ProductPrice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductPriceCacheTests {
+    private AtomicLong time;
+    private MeterRegistry registry;
+    private ProductPriceCache cache;
+
+    @Before
+    public void initialize() {
+        time = new AtomicLong();
+        registry = new SimpleMeterRegistry();
+        cache = new ProductPriceCache(new PriceCacheConfiguration(true, 4, Duration.ofMinutes(5)), registry, (Ticker) time::get);
+    }
+
+    @Test
+    public void getIfPresent_CachedPrices_SamePrices() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 49.99F, "USD"));
+        cache.put(new ProductPrice(2L, 0.1F, "EUR"));
+        cache.put(new ProductPrice(1L, 19.99F, "GBP"));
+
+        /* When */
+        ProductPrice first = cache.getIfPresent(1L);
+        ProductPrice second = cache.getIfPresent(2L);
+        ProductPrice unknown = cache.getIfPresent(3L);
+
+        /* Then */
+        assertThat(first).isEqualTo(new ProductPrice(1L, 19.99F, "GBP"));
+        assertThat(second).isEqualTo(new ProductPrice(2L, 0.1F, "EUR"));
+        assertThat(unknown).isNull();
+        assertThat(registry.get("prices.cache.size").gauge().value()).isEqualTo(2);
+        assertThat(registry.get("prices.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("prices.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void getIfPresent_PricesWithMoreThanTwoDecimals_ExactlySamePrices() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 12.345F, "USD"));
+        cache.put(new ProductPrice(2L, 0.001F, "USD"));
+
+        /* When */
+        ProductPrice first = cache.getIfPresent(1L);
+        ProductPrice second = cache.getIfPresent(2L);
+
+        /* Then */
+        assertThat(first.getPrice()).isEqualTo(12.345F);
+        assertThat(second.getPrice()).isEqualTo(0.001F);
+    }
+
+    @Test
+    public void getIfPresent_LargePrices_ExactlySamePrices() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 123456789.5F, "USD"));
+        cache.put(new ProductPrice(2L, Float.MAX_VALUE, "USD"));
+        cache.put(new ProductPrice(3L, Float.POSITIVE_INFINITY, "USD"));
+
+        /* When */
+        ProductPrice first = cache.getIfPresent(1L);
+        ProductPrice second = cache.getIfPresent(2L);
+        ProductPrice third = cache.getIfPresent(3L);
+
+        /* Then */
+        assertThat(first.getPrice()).isEqualTo(123456789.5F);
+        assertThat(second.getPrice()).isEqualTo(Float.MAX_VALUE);
+        assertThat(third.getPrice()).isEqualTo(Float.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void load_AfterMiss_MissCountedOnceAndPriceCached() {
+        /* Given */
+        ProductPrice price = new ProductPrice(1L, 49.99F, "USD");
+        ProductPrice missed = cache.getIfPresent(1L);
+
+        /* When */
+        Optional<ProductPrice> loaded = cache.load(1L, id -> Optional.of(price));
+
+        /* Then */
+        assertThat(missed).isNull();
+        assertThat(loaded).contains(price);
+        assertThat(cache.getIfPresent(1L)).isEqualTo(price);
+        assertThat(registry.get("prices.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void load_PriceSavedWhileLoading_SavedPriceKept() {
+        /* Given */
+        ProductPrice stale = new ProductPrice(1L, 49.99F, "USD");
+        ProductPrice saved = new ProductPrice(1L, 19.99F, "USD");
+
+        /* When */
+        Optional<ProductPrice> loaded = cache.load(1L, id -> {
+            // The price is saved after the load read it, but before the load fills the cache
+            cache.put(saved);
+            return Optional.of(stale);
+        });
+
+        /* Then */
+        assertThat(loaded).contains(stale);
+        assertThat(cache.getIfPresent(1L)).isEqualTo(saved);
+    }
+
+    @Test
+    public void load_Expired_PriceReplaced() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 49.99F, "USD"));
+        time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        /* When */
+        cache.load(1L, id -> Optional.of(new ProductPrice(1L, 19.99F, "USD")));
+
+        /* Then */
+        assertThat(cache.getIfPresent(1L)).isEqualTo(new ProductPrice(1L, 19.99F, "USD"));
+        assertThat(registry.get("prices.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void load_NoPrice_NotCached() {
+        /* Given */
+        cache.load(1L, id -> Optional.empty());
+
+        /* When */
+        ProductPrice result = cache.getIfPresent(1L);
+
+        /* Then */
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void getIfPresentQuietly_CachedAndUnknown_NothingCounted() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 49.99F, "USD"));
+
+        /* When */
+        ProductPrice cached = cache.getIfPresentQuietly(1L);
+        ProductPrice unknown = cache.getIfPresentQuietly(2L);
+
+        /* Then */
+        assertThat(cached).isEqualTo(new ProductPrice(1L, 49.99F, "USD"));
+        assertThat(unknown).isNull();
+        assertThat(registry.get("prices.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(0);
+        assertThat(registry.get("prices.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void getIfPresent_Expired_NotPresent() {
+        /* Given */
+        cache.put(new ProductPrice(1L, 49.99F, "USD"));
+        time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+
+        /* When */
+        ProductPrice result = cache.getIfPresent(1L);
+
+        /* Then */
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void put_Full_RejectedUntilExpiredPricesArePurged() {
+        /* Given */
+        for (long productId = 1; productId <= 4; productId++) {
+            cache.put(new ProductPrice(productId, 1.0F, "USD"));
+        }
+
+        /* When */
+        cache.put(new ProductPrice(5L, 1.0F, "USD"));
+        ProductPrice rejected = cache.getIfPresent(5L);
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        cache.put(new ProductPrice(5L, 1.0F, "USD"));
+        ProductPrice admitted = cache.getIfPresent(5L);
+
+        /* Then */
+        assertThat(rejected).isNull();
+        assertThat(admitted).isEqualTo(new ProductPrice(5L, 1.0F, "USD"));
+        assertThat(registry.get("prices.cache.rejections").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("prices.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    public void put_FullWithSomeExpired_LivePricesKeptAfterPurge() {
+        /* Given */
+        ProductPriceCache full = new ProductPriceCache(new PriceCacheConfiguration(true, 48, Duration.ofMinutes(5)), new SimpleMeterRegistry(), (Ticker) time::get);
+        for (long productId = 0; productId < 48; productId += 2) {
+            full.put(new ProductPrice(productId, 1.0F, "USD"));
+        }
+        time.addAndGet(TimeUnit.MINUTES.toNanos(3));
+        for (long productId = 1; productId < 48; productId += 2) {
+            full.put(new ProductPrice(productId, 2.0F, "USD"));
+        }
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        /* When */
+        full.put(new ProductPrice(100L, 3.0F, "USD"));
+
+        /* Then */
+        for (long productId = 0; productId < 48; productId++) {
+            assertThat(full.getIfPresent(productId)).isEqualTo(productId % 2 == 0 ? null : new ProductPrice(productId, 2.0F, "USD"));
+        }
+        assertThat(full.getIfPresent(100L)).isEqualTo(new ProductPrice(100L, 3.0F, "USD"));
+    }
+
+    @Test
+    public void footprint_Capacity_PrimitiveSlotsOnly() {
+        /* Given */
+        ProductPriceCache large = new ProductPriceCache(new PriceCacheConfiguration(true, 1_000_000, Duration.ofMinutes(5)), registry = new SimpleMeterRegistry());
+
+        /* When */
+        double footprint = registry.get("prices.cache.footprint").gauge().value();
+
+        /* Then */
+        // 2^21 slots of 18 bytes each
+        assertThat(footprint).isEqualTo(2_097_152 * 18.0);
+        assertThat(large.getIfPresent(1L)).isNull();
+    }
+
+    @Test
+    public void load_Disabled_AlwaysLoaded() {
+        /* Given */
+        ProductPriceCache disabled = new ProductPriceCache(new PriceCacheConfiguration(false, 4, Duration.ofMinutes(5)), new SimpleMeterRegistry());
+        disabled.put(new ProductPrice(1L, 49.99F, "USD"));
+
+        /* When */
+        Optional<ProductPrice> result = disabled.load(1L, id -> Optional.empty());
+
+        /* Then */
+        assertThat(result).isEmpty();
+        assertThat(disabled.getIfPresent(1L)).isNull();
+    }
+}
@@ -0,0 +1,174 @@
+package com.myretail.products.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myretail.products.MockData;
+import com.myretail.products.configuration.RedSkyCacheConfiguration;
+import com.myretail.products.configuration.ResponseCacheConfiguration;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductResponseCacheTests {
+    private static final Long PRODUCT_ID = 123456789L;
+
+    private ObjectMapper mapper;
+    private MeterRegistry registry;
+    private RedSkyProductCache redSkyCache;
+    private ProductResponseCache cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void initialize() {
+        mapper = new ObjectMapper();
+        registry = new SimpleMeterRegistry();
+        redSkyCache = new RedSkyProductCache(new RedSkyCacheConfiguration(true, 16, Duration.ofMinutes(10), Duration.ofSeconds(30)), registry);
+        cache = new ProductResponseCache(new ResponseCacheConfiguration(true, 1024 * 1024, Duration.ofMinutes(1), true, 1024), redSkyCache, mapper, registry, new StageTimers(registry));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void get_RedSkyProductCached_EncodedOnceThenServedFromCache() throws IOException {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+
+        /* When */
+        EncodedResponse first = cache.get(PRODUCT_ID, this::load);
+        EncodedResponse second = cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second).isSameAs(first);
+        assertThat(mapper.readValue(first.getBody(), ProductResponse.class)).isEqualToComparingFieldByFieldRecursively(MockData.validResponse());
+        assertThat(first.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(first.getCompressedBody()).isNull();
+        assertThat(registry.get("products.responses.footprint").gauge().value()).isGreaterThan(0);
+    }
+
+    @Test
+    public void get_Invalidated_EncodedAgain() {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+        cache.get(PRODUCT_ID, this::load);
+
+        /* When */
+        cache.invalidate(PRODUCT_ID);
+        cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_RedSkyProductReplaced_EncodedAgain() {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+        cache.get(PRODUCT_ID, this::load);
+
+        /* When */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+        cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_RedSkyProductNotCached_NotCached() {
+        /* When */
+        cache.get(PRODUCT_ID, this::load);
+        cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_InvalidatedWhileLoading_NotCached() {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+
+        /* When */
+        cache.get(PRODUCT_ID, id -> {
+            cache.invalidate(id);
+            return this.load(id);
+        });
+        cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_ResponseWithErrors_NotCached() {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+        Function<Long, ProductResponse> loader = id -> {
+            ProductResponse response = this.load(id);
+            response.getErrors().add(new ProductError(ProductError.PRICING, "Product not found"));
+            return response;
+        };
+
+        /* When */
+        cache.get(PRODUCT_ID, loader);
+        cache.get(PRODUCT_ID, loader);
+
+        /* Then */
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_Cached_RedSkyCacheStatisticsUntouched() {
+        /* Given */
+        redSkyCache.put(PRODUCT_ID, Optional.of(MockData.validRedSkyResponse().getProduct()));
+
+        /* When */
+        cache.get(PRODUCT_ID, this::load);
+        cache.get(PRODUCT_ID, this::load);
+
+        /* Then */
+        assertThat(registry.get("cache.gets").tag("cache", "redsky.products").tag("result", "hit").functionCounter().count()).isEqualTo(0);
+        assertThat(registry.get("cache.gets").tag("cache", "redsky.products").tag("result", "miss").functionCounter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void get_LargeResponse_CompressedWithDistinctEtag() throws IOException {
+        /* Given */
+        RedSkyProduct product = MockData.validRedSkyResponse().getProduct();
+        redSkyCache.put(PRODUCT_ID, Optional.of(product));
+        ProductResponse large = MockData.validResponse();
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 2048) description.append("Test Product ");
+        large.getData().get(0).setDescription(description.toString());
+
+        /* When */
+        EncodedResponse result = cache.get(PRODUCT_ID, id -> large);
+
+        /* Then */
+        assertThat(result.getCompressedBody()).isNotNull();
+        assertThat(result.getCompressedBody().length).isLessThan(result.getBody().length);
+        assertThat(result.getCompressedEtag()).isNotEqualTo(result.getEtag()).endsWith("-gzip\"");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getCompressedBody()))) {
+            assertThat(in).hasSameContentAs(new ByteArrayInputStream(result.getBody()));
+        }
+    }
+
+    private ProductResponse load(Long productId) {
+        loads.incrementAndGet();
+        return MockData.validResponse();
+    }
+}
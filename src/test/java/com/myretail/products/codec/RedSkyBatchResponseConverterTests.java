@@ -0,0 +1,109 @@
+package com.myretail.products.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.myretail.products.model.redsky.RedSkyBatchResponse;
+import com.myretail.products.model.redsky.RedSkyItem;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedSkyBatchResponseConverterTests {
+    private RedSkyBatchResponseConverter converter;
+
+    @Before
+    public void initialize() {
+        converter = new RedSkyBatchResponseConverter(new JsonFactory());
+    }
+
+    @Test
+    public void decode_FullResponse_OnlyMappedFieldsOfEveryProduct() throws IOException {
+        /* Given */
+        InputStream body = body("{\"products\":[" +
+                "{\"available_to_promise_network\":{\"product_id\":\"1\",\"title\":\"Not This One\"}," +
+                "\"item\":{\"tcin\":\"1\",\"product_description\":{\"title\":\"First\"},\"dpci\":\"058-34-0436\"," +
+                "\"bundle_components\":{\"items\":[{\"tcin\":\"3\"}]}},\"enrichment\":{\"images\":[{\"primary\":\"a\"}]}}," +
+                "{\"item\":{\"product_description\":{\"title\":\"Second\"},\"tcin\":\"2\"}}" +
+                "],\"errors\":[]}");
+
+        /* When */
+        RedSkyBatchResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result.getProducts()).containsExactly(
+                new RedSkyProduct(new RedSkyItem("1", new RedSkyProductDescription("First"))),
+                new RedSkyProduct(new RedSkyItem("2", new RedSkyProductDescription("Second"))));
+    }
+
+    @Test
+    public void decode_ProductsWithoutItem_EmptyProducts() throws IOException {
+        /* Given */
+        InputStream body = body("{\"products\":[{\"enrichment\":{}},null,{\"item\":{\"tcin\":\"2\"}}]}");
+
+        /* When */
+        RedSkyBatchResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result.getProducts()).containsExactly(
+                new RedSkyProduct(),
+                new RedSkyProduct(new RedSkyItem("2", null)));
+    }
+
+    @Test
+    public void decode_NoProducts_EmptyResponse() throws IOException {
+        /* Given */
+        InputStream body = body("{\"errors\":[{\"message\":\"Not Found\"}]}");
+
+        /* When */
+        RedSkyBatchResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result).isEqualTo(new RedSkyBatchResponse(Collections.emptyList()));
+    }
+
+    @Test
+    public void read_JsonMessage_DecodedResponse() throws IOException {
+        /* Given */
+        MockHttpInputMessage message = new MockHttpInputMessage(
+                "{\"products\":[{\"item\":{\"tcin\":\"1\",\"product_description\":{\"title\":\"T\"}}}]}".getBytes(StandardCharsets.UTF_8));
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        /* When */
+        boolean readable = converter.canRead(RedSkyBatchResponse.class, MediaType.APPLICATION_JSON);
+        RedSkyBatchResponse result = converter.read(RedSkyBatchResponse.class, message);
+
+        /* Then */
+        assertThat(readable).isTrue();
+        assertThat(converter.canWrite(RedSkyBatchResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(result).isEqualTo(new RedSkyBatchResponse(Arrays.asList(
+                new RedSkyProduct(new RedSkyItem("1", new RedSkyProductDescription("T"))))));
+    }
+
+    @Test(expected = HttpMessageNotReadableException.class)
+    public void read_MalformedMessage_ThrowsNotReadable() throws IOException {
+        /* Given */
+        MockHttpInputMessage message = new MockHttpInputMessage("{\"products\":[{\"item\":[}".getBytes(StandardCharsets.UTF_8));
+
+        /* When */
+        converter.read(RedSkyBatchResponse.class, message);
+
+        /* Then */
+        // Validation is purely that the exception is thrown
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,115 @@
+package com.myretail.products.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.myretail.products.MockData;
+import com.myretail.products.model.redsky.RedSkyItem;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RedSkyResponseConverterTests {
+    private RedSkyResponseConverter converter;
+
+    @Before
+    public void initialize() {
+        converter = new RedSkyResponseConverter(new JsonFactory());
+    }
+
+    @Test
+    public void decode_FullResponse_OnlyMappedFields() throws IOException {
+        /* Given */
+        InputStream body = body("{\"product\":{" +
+                "\"available_to_promise_network\":{\"product_id\":\"123456789\",\"title\":\"Not This One\"}," +
+                "\"item\":{\"dpci\":\"058-34-0436\",\"bundle_components\":{\"items\":[{\"tcin\":\"1\"}]}," +
+                "\"tcin\":\"123456789\",\"product_description\":{\"bullets\":[\"a\",{\"title\":\"b\"}],\"title\":\"Test Product\"}," +
+                "\"enrichment\":{\"images\":[]}}}}");
+
+        /* When */
+        RedSkyResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result).isEqualTo(MockData.validRedSkyResponse());
+    }
+
+    @Test
+    public void decode_FieldsFound_StopsReading() throws IOException {
+        /* Given */
+        InputStream body = body("{\"product\":{\"item\":{\"tcin\":\"123456789\"," +
+                "\"product_description\":{\"title\":\"Test Product\"}, this is never read");
+
+        /* When */
+        RedSkyResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result).isEqualTo(MockData.validRedSkyResponse());
+    }
+
+    @Test
+    public void decode_NoProduct_EmptyResponse() throws IOException {
+        /* Given */
+        InputStream body = body("{\"errors\":[{\"message\":\"Not Found\"}],\"product\":null}");
+
+        /* When */
+        RedSkyResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result).isEqualTo(new RedSkyResponse());
+    }
+
+    @Test
+    public void decode_NoDescription_ItemWithoutDescription() throws IOException {
+        /* Given */
+        InputStream body = body("{\"product\":{\"item\":{\"tcin\":123456789}}}");
+
+        /* When */
+        RedSkyResponse result = converter.decode(body);
+
+        /* Then */
+        assertThat(result).isEqualTo(new RedSkyResponse(new RedSkyProduct(new RedSkyItem("123456789", null))));
+    }
+
+    @Test
+    public void read_JsonMessage_DecodedResponse() throws IOException {
+        /* Given */
+        MockHttpInputMessage message = new MockHttpInputMessage(
+                "{\"product\":{\"item\":{\"tcin\":\"1\",\"product_description\":{\"title\":\"T\"}}}}".getBytes(StandardCharsets.UTF_8));
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        /* When */
+        boolean readable = converter.canRead(RedSkyResponse.class, MediaType.APPLICATION_JSON);
+        RedSkyResponse result = converter.read(RedSkyResponse.class, message);
+
+        /* Then */
+        assertThat(readable).isTrue();
+        assertThat(converter.canWrite(RedSkyResponse.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(result).isEqualTo(new RedSkyResponse(new RedSkyProduct(new RedSkyItem("1", new RedSkyProductDescription("T")))));
+    }
+
+    @Test(expected = HttpMessageNotReadableException.class)
+    public void read_MalformedMessage_ThrowsNotReadable() throws IOException {
+        /* Given */
+        MockHttpInputMessage message = new MockHttpInputMessage("{\"product\":{\"item\":[}".getBytes(StandardCharsets.UTF_8));
+
+        /* When */
+        converter.read(RedSkyResponse.class, message);
+
+        /* Then */
+        // Validation is purely that the exception is thrown
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,161 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTests {
+
+    private Counter rejected;
+
+    @Before
+    public void initialize() {
+        rejected = new SimpleMeterRegistry().counter("rejected");
+    }
+
+    @Test
+    public void acquire_UnderLimit_GrantsPermit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+
+        /* When */
+        AdaptiveLimiter.Permit first = limiter.acquire();
+        AdaptiveLimiter.Permit second = limiter.acquire();
+
+        /* Then */
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+        assertThat(rejected.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void acquire_AtLimit_RejectsCall() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+        limiter.acquire();
+
+        /* When */
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        /* Then */
+        assertThat(permit).isNull();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+        assertThat(rejected.count()).isEqualTo(1);
+    }
+
+    @Test
+    public void onSuccess_FastCallAtLimit_IncreasesLimit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+        limiter.acquire();
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        /* When */
+        permit.onSuccess();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    public void onSuccess_FastCallWellUnderLimit_KeepsLimit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        /* When */
+        permit.onSuccess();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void onSuccess_SlowCall_DecreasesLimit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 10, Duration.ZERO, 0.5, rejected);
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        /* When */
+        sleep(1);
+        permit.onSuccess();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    public void onDropped_RepeatedFailures_StopsAtMinLimit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 3, 10, Duration.ofSeconds(1), 0.5, rejected);
+
+        /* When */
+        for (int i = 0; i < 5; i++) limiter.acquire().onDropped();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void onDropped_CallsInFlightTogether_DecreasesLimitOnce() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+        AdaptiveLimiter.Permit first = limiter.acquire();
+        AdaptiveLimiter.Permit second = limiter.acquire();
+        AdaptiveLimiter.Permit third = limiter.acquire();
+
+        /* When */
+        first.onDropped();
+        second.onDropped();
+        third.onDropped();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void onSuccess_RepeatedFastCalls_StopsAtMaxLimit() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 3, Duration.ofSeconds(1), 0.5, rejected);
+
+        /* When */
+        for (int i = 0; i < 5; i++) limiter.acquire().onSuccess();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    public void onIgnored_ReleasedTwice_KeepsLimitAndReleasesOnce() {
+        /* Given */
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5, rejected);
+        limiter.acquire();
+        AdaptiveLimiter.Permit permit = limiter.acquire();
+
+        /* When */
+        permit.onIgnored();
+        permit.onDropped();
+
+        /* Then */
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
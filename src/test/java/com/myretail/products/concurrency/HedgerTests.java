@@ -0,0 +1,307 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HedgerTests {
+
+    private Counter sent;
+    private Counter won;
+    private Counter denied;
+
+    @Before
+    public void initialize() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        sent = registry.counter("sent");
+        won = registry.counter("won");
+        denied = registry.counter("denied");
+    }
+
+    @Test
+    public void execute_Disabled_RunsCallOnCurrentThread() {
+        /* Given */
+        Hedger hedger = hedger(false, 100);
+
+        /* When */
+        Thread result = hedger.execute(Thread::currentThread);
+
+        /* Then */
+        assertThat(result).isSameAs(Thread.currentThread());
+        assertThat(hedger.getDelay()).isNull();
+    }
+
+    @Test
+    public void execute_TooFewLatenciesObserved_DoesNotHedge() {
+        /* Given */
+        Hedger hedger = hedger(true, 100);
+        AtomicInteger calls = new AtomicInteger();
+
+        /* When */
+        String result = hedger.execute(() -> {
+            calls.incrementAndGet();
+            sleep(200);
+            return "slow";
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("slow");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(sent.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void execute_SlowCall_HedgeAnswersFirstAndCancelsSlowCall() throws Exception {
+        /* Given */
+        Hedger hedger = hedger(true, 100);
+        warmUp(hedger);
+        double sentBefore = sent.count();
+        double wonBefore = won.count();
+
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        /* When */
+        String result = hedger.execute(() -> {
+            if (calls.incrementAndGet() > 1) return "hedge";
+            try {
+                Thread.sleep(5_000);
+                return "slow";
+            } catch (InterruptedException ex) {
+                cancelled.countDown();
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("hedge");
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(sent.count() - sentBefore).isEqualTo(1);
+        assertThat(won.count() - wonBefore).isEqualTo(1);
+        assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void execute_SlowCallOverBudget_DoesNotHedge() {
+        /* Given */
+        Hedger hedger = hedger(true, 0);
+        warmUp(hedger);
+        double deniedBefore = denied.count();
+
+        AtomicInteger calls = new AtomicInteger();
+
+        /* When */
+        String result = hedger.execute(() -> {
+            calls.incrementAndGet();
+            sleep(500);
+            return "slow";
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("slow");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(sent.count()).isEqualTo(0);
+        assertThat(denied.count() - deniedBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_ExecutorSaturated_RunsCallOnCurrentThread() throws Exception {
+        /* Given */
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        executor.execute(() -> {
+            busy.countDown();
+            try {
+                released.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(busy.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Hedger hedger = hedger(executor, true, 100);
+
+        /* When */
+        Thread result;
+        try {
+            result = hedger.execute(Thread::currentThread);
+        } finally {
+            released.countDown();
+            executor.shutdown();
+        }
+
+        /* Then */
+        assertThat(result).isSameAs(Thread.currentThread());
+        assertThat(sent.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void execute_SlowCallExecutorSaturated_HedgeDenied() {
+        /* Given */
+        AtomicInteger accepted = new AtomicInteger(Integer.MAX_VALUE);
+        Hedger hedger = hedger(new SimpleAsyncTaskExecutor("hedge-") {
+            @Override
+            public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+                if (accepted.getAndDecrement() <= 0) throw new TaskRejectedException("Saturated");
+                return super.submitListenable(task);
+            }
+        }, true, 100);
+        warmUp(hedger);
+        accepted.set(1);
+        double deniedBefore = denied.count();
+
+        AtomicInteger calls = new AtomicInteger();
+
+        /* When */
+        String result = hedger.execute(() -> {
+            calls.incrementAndGet();
+            sleep(500);
+            return "slow";
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("slow");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(sent.count()).isEqualTo(0);
+        assertThat(denied.count() - deniedBefore).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_SlowCallBlockedUninterruptibly_AbortedWhenHedgeAnswersFirst() throws Exception {
+        /* Given */
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger released = new AtomicInteger();
+        Hedger hedger = hedger(new SimpleAsyncTaskExecutor("hedge-"), () -> {
+            reserved.incrementAndGet();
+            return new Hedger.Reservation() {
+                @Override
+                public void onSuccess() {
+                    released.incrementAndGet();
+                }
+
+                @Override
+                public void onDropped() {
+                }
+
+                @Override
+                public void onIgnored() {
+                }
+            };
+        }, true, 100);
+        warmUp(hedger);
+
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch aborted = new CountDownLatch(1);
+        CountDownLatch returned = new CountDownLatch(1);
+
+        /* When */
+        String result = hedger.execute(() -> {
+            if (calls.incrementAndGet() > 1) return "hedge";
+            Hedger.onCancel(aborted::countDown);
+            // Like a blocking socket read, the wait ignores interrupts and only ends once aborted
+            while (aborted.getCount() > 0) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            returned.countDown();
+            return "slow";
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("hedge");
+        assertThat(returned.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(reserved.get()).isEqualTo(1);
+        assertThat(released.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_SlowCallNoCapacityLeft_HedgeDenied() {
+        /* Given */
+        Hedger hedger = hedger(new SimpleAsyncTaskExecutor("hedge-"), () -> null, true, 100);
+        warmUp(hedger);
+        double deniedBefore = denied.count();
+
+        AtomicInteger calls = new AtomicInteger();
+
+        /* When */
+        String result = hedger.execute(() -> {
+            calls.incrementAndGet();
+            sleep(500);
+            return "slow";
+        });
+
+        /* Then */
+        assertThat(result).isEqualTo("slow");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(sent.count()).isEqualTo(0);
+        assertThat(denied.count() - deniedBefore).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void execute_CallFails_ThrowsCallException() {
+        /* Given */
+        Hedger hedger = hedger(true, 100);
+
+        /* When */
+        hedger.execute(() -> {
+            throw new IllegalArgumentException("failed");
+        });
+
+        /* Then */
+        // The exception thrown by the call is rethrown as is
+    }
+
+    private Hedger hedger(boolean enabled, double budgetPercent) {
+        return hedger(new SimpleAsyncTaskExecutor("hedge-"), enabled, budgetPercent);
+    }
+
+    private Hedger hedger(AsyncListenableTaskExecutor executor, boolean enabled, double budgetPercent) {
+        return hedger(executor, Hedger.Capacity.UNLIMITED, enabled, budgetPercent);
+    }
+
+    private Hedger hedger(AsyncListenableTaskExecutor executor, Hedger.Capacity capacity, boolean enabled, double budgetPercent) {
+        return new Hedger(
+                enabled,
+                executor,
+                capacity,
+                0.5,
+                Duration.ofMillis(100),
+                budgetPercent,
+                10,
+                sent,
+                won,
+                denied);
+    }
+
+    private static void warmUp(Hedger hedger) {
+        for (int i = 0; i < 10; i++) hedger.execute(() -> "fast");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
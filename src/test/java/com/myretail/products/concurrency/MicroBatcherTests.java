@@ -0,0 +1,106 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MicroBatcherTests {
+
+    private DistributionSummary fill;
+    private List<List<Long>> batches;
+    private Function<List<Long>, Map<Long, String>> loader;
+
+    @Before
+    public void initialize() {
+        fill = new SimpleMeterRegistry().summary("fill");
+        batches = new CopyOnWriteArrayList<>();
+        loader = keys -> {
+            batches.add(keys);
+            return keys.stream().filter(key -> key > 0).collect(Collectors.toMap(key -> key, key -> "value-" + key));
+        };
+    }
+
+    @Test
+    public void get_SingleCaller_LoadsAloneAfterWindow() {
+        /* Given */
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(10, Duration.ofMillis(5), loader, fill);
+
+        /* When */
+        String result = batcher.get(1L);
+
+        /* Then */
+        assertThat(result).isEqualTo("value-1");
+        assertThat(batches).hasSize(1);
+        assertThat(fill.count()).isEqualTo(1);
+        assertThat(fill.totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_ConcurrentCallersUpToMaxSize_LoadsOneBatchWithoutWaitingForWindow() {
+        /* Given */
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(2, Duration.ofSeconds(30), loader, fill);
+
+        /* When */
+        long start = System.nanoTime();
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> batcher.get(1L));
+        String second = batcher.get(2L);
+
+        /* Then */
+        assertThat(first.join()).isEqualTo("value-1");
+        assertThat(second).isEqualTo("value-2");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(30));
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(fill.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_KeyMissingFromLoadedValues_ReturnsNull() {
+        /* Given */
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(1, Duration.ofMillis(5), loader, fill);
+
+        /* When */
+        String result = batcher.get(-1L);
+
+        /* Then */
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void get_LoaderFails_EveryCallerReceivesException() {
+        /* Given */
+        MicroBatcher<Long, String> batcher = new MicroBatcher<>(2, Duration.ofSeconds(30), keys -> {
+            throw new IllegalStateException("failed");
+        }, fill);
+
+        /* When */
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> batcher.get(1L));
+        Throwable second = catchThrowable(() -> batcher.get(2L));
+
+        /* Then */
+        assertThat(second).isInstanceOf(IllegalStateException.class);
+        assertThat(catchThrowable(first::join)).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    private static Throwable catchThrowable(Runnable call) {
+        try {
+            call.run();
+            return null;
+        } catch (Throwable ex) {
+            return ex;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.myretail.products.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFlightTests {
+
+    private Counter coalesced;
+    private SingleFlight<Long, String> singleFlight;
+
+    @Before
+    public void initialize() {
+        coalesced = new SimpleMeterRegistry().counter("coalesced");
+        singleFlight = new SingleFlight<>(coalesced);
+    }
+
+    @Test
+    public void execute_NoCallInFlight_ExecutesCall() {
+        /* Given */
+        AtomicInteger calls = new AtomicInteger();
+
+        /* When */
+        String result = singleFlight.execute(1L, () -> "call-" + calls.incrementAndGet());
+
+        /* Then */
+        assertThat(result).isEqualTo("call-1");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(coalesced.count()).isEqualTo(0);
+    }
+
+    @Test
+    public void execute_CallInFlightForSameKey_SharesResult() throws Exception {
+        /* Given */
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            return "call-" + calls.incrementAndGet();
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        /* When */
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(1L, () -> "call-" + calls.incrementAndGet()));
+        waitForCoalesced(1);
+        release.countDown();
+
+        /* Then */
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("call-1");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("call-1");
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void execute_CallInFlightForSameKeyFails_SharesException() throws Exception {
+        /* Given */
+        IllegalStateException expected = new IllegalStateException("Test Exception");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            started.countDown();
+            await(release);
+            throw expected;
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        /* When */
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                () -> singleFlight.execute(1L, () -> "unexpected"));
+        waitForCoalesced(1);
+        release.countDown();
+
+        /* Then */
+        assertThat(cause(leader)).isSameAs(expected);
+        assertThat(cause(follower)).isSameAs(expected);
+    }
+
+    @Test
+    public void execute_CallCompletedForSameKey_ExecutesNewCall() {
+        /* Given */
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute(1L, () -> "call-" + calls.incrementAndGet());
+
+        /* When */
+        String result = singleFlight.execute(1L, () -> "call-" + calls.incrementAndGet());
+
+        /* Then */
+        assertThat(result).isEqualTo("call-2");
+        assertThat(coalesced.count()).isEqualTo(0);
+    }
+
+    private void waitForCoalesced(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced.count() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Throwable cause(CompletableFuture<String> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException ex) {
+            return ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.myretail.products.concurrency;
+
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadsTests {
+
+    @Test
+    public void factory_SupportedJdk_StartsNamedVirtualThreads() throws Exception {
+        /* Given */
+        assumeTrue(VirtualThreads.isSupported());
+        ThreadFactory factory = VirtualThreads.factory("test-");
+        CompletableFuture<Thread> ran = new CompletableFuture<>();
+
+        /* When */
+        Thread thread = factory.newThread(() -> ran.complete(Thread.currentThread()));
+        thread.start();
+
+        /* Then */
+        assertThat(ran.get(5, TimeUnit.SECONDS)).isSameAs(thread);
+        assertThat(thread.getName()).isEqualTo("test-0");
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+    }
+
+    @Test
+    public void factory_UnsupportedJdk_ThrowsIllegalStateException() {
+        /* Given */
+        assumeFalse(VirtualThreads.isSupported());
+
+        /* When */
+        /* Then */
+        assertThatThrownBy(() -> VirtualThreads.factory("test-"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("JDK 21");
+    }
+}
@@ -0,0 +1,60 @@
+package com.myretail.products.construction;
+
+import com.myretail.products.MockData;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntityTagFactoryTests {
+
+    @Test
+    public void create_SameResponse_SameStrongTag() {
+        /* Given */
+        ProductResponse response = MockData.validResponse();
+
+        /* When */
+        String result = EntityTagFactory.create(response);
+
+        /* Then */
+        assertThat(result).isEqualTo(EntityTagFactory.create(MockData.validResponse()));
+        assertThat(result).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+    }
+
+    @Test
+    public void create_DifferentPrice_DifferentTag() {
+        /* Given */
+        ProductResponse response = MockData.validResponse();
+        response.getData().get(0).getPrice().setValue(response.getData().get(0).getPrice().getValue() + 0.01F);
+
+        /* When */
+        String result = EntityTagFactory.create(response);
+
+        /* Then */
+        assertThat(result).isNotEqualTo(EntityTagFactory.create(MockData.validResponse()));
+    }
+
+    @Test
+    public void create_PriceMissing_DifferentTag() {
+        /* Given */
+        ProductResponse response = MockData.validResponse();
+        response.getData().get(0).setPrice(null);
+        response.getErrors().add(new ProductError(ProductError.PRICING, "Product not found"));
+
+        /* When */
+        String result = EntityTagFactory.create(response);
+
+        /* Then */
+        assertThat(result).isNotEqualTo(EntityTagFactory.create(MockData.validResponse()));
+    }
+
+    @Test
+    public void compressed_StrongTag_DistinctQuotedTag() {
+        /* When */
+        String result = EntityTagFactory.compressed("\"abc\"");
+
+        /* Then */
+        assertThat(result).isEqualTo("\"abc-gzip\"");
+    }
+}
@@ -0,0 +1,79 @@
+package com.myretail.products.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ServerTimingTests {
+
+    @After
+    public void cleanup() {
+        ServerTiming.end();
+    }
+
+    @Test
+    public void header_RecordedStages_StagesInOrderWithTotal() {
+        /* Given */
+        ServerTiming.begin(0);
+        ServerTiming timing = ServerTiming.current();
+        timing.add(StageTimers.BUILD, 45_000);
+        timing.add(StageTimers.REDSKY, 12_345_678);
+        timing.add(StageTimers.REDSKY, 1_000_000);
+        timing.add("unknown", 1_000_000);
+
+        /* When */
+        String result = timing.header(20_000_000);
+
+        /* Then */
+        assertThat(result).isEqualTo("redsky;dur=13.345, build;dur=0.045, total;dur=20.000");
+    }
+
+    @Test
+    public void current_NotRecording_Null() {
+        /* When */
+        ServerTiming result = ServerTiming.current();
+
+        /* Then */
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void propagate_NotRecording_SameTask() {
+        /* Given */
+        Runnable task = () -> { };
+
+        /* When */
+        Runnable result = ServerTiming.propagate(task);
+
+        /* Then */
+        assertThat(result).isSameAs(task);
+    }
+
+    @Test
+    public void propagate_Recording_StagesOfOtherThreadsRecorded() {
+        /* Given */
+        ServerTiming.begin(0);
+        ServerTiming timing = ServerTiming.current();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        /* When */
+        try {
+            CompletableFuture.runAsync(
+                    ServerTiming.propagate(() -> ServerTiming.current().add(StageTimers.PRICES_READ, 2_000_000)),
+                    executor).join();
+            CompletableFuture.runAsync(
+                    () -> assertThat(ServerTiming.current()).isNull(),
+                    executor).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        /* Then */
+        assertThat(timing.header(5_000_000)).isEqualTo("prices.read;dur=2.000, total;dur=5.000");
+    }
+}
@@ -0,0 +1,118 @@
+package com.myretail.products.metrics;
+
+import com.myretail.products.exception.BadRequestException;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StageTimersTests {
+    private MockClock clock;
+    private MeterRegistry registry;
+    private StageTimers stages;
+
+    @Before
+    public void initialize() {
+        clock = new MockClock();
+        registry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+        stages = new StageTimers(registry);
+    }
+
+    @Test
+    public void stop_CompletedStage_TimedWithOutcome() {
+        /* Given */
+        long start = stages.start();
+        clock.add(5, TimeUnit.MILLISECONDS);
+
+        /* When */
+        stages.stop(StageTimers.REDSKY, StageTimers.MISS, start);
+        stages.stop(StageTimers.REDSKY, StageTimers.MISS, stages.start());
+
+        /* Then */
+        Timer timer = registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.REDSKY)
+                .tag("outcome", StageTimers.MISS)
+                .tag("exception", "none")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+    }
+
+    @Test
+    public void stop_FailedStage_TimedWithErrorOutcomeAndExceptionType() {
+        /* When */
+        stages.stop(StageTimers.VALIDATION, new BadRequestException("Test Bad Request"), stages.start());
+        stages.stop(StageTimers.REDSKY, new RepositoryUnavailableException("Test Server Exception"), stages.start());
+        stages.stop(StageTimers.PRICES_READ, new IllegalStateException("Test Unexpected Exception"), stages.start());
+
+        /* Then */
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.VALIDATION)
+                .tag("outcome", StageTimers.CLIENT_ERROR)
+                .tag("exception", "BadRequestException")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.REDSKY)
+                .tag("outcome", StageTimers.SERVER_ERROR)
+                .tag("exception", "RepositoryUnavailableException")
+                .timer().count()).isEqualTo(1);
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.PRICES_READ)
+                .tag("outcome", StageTimers.SERVER_ERROR)
+                .tag("exception", "IllegalStateException")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void time_ReactiveStage_TimedAndAddedToServerTimingInContext() {
+        /* Given */
+        ServerTiming timing = ServerTiming.of(clock.monotonicTime());
+        Mono<String> stage = Mono.fromCallable(() -> {
+            clock.add(5, TimeUnit.MILLISECONDS);
+            return "price";
+        });
+
+        /* When */
+        stages.time(StageTimers.PRICES_READ, price -> StageTimers.SUCCESS, stage)
+                .subscriberContext(ServerTiming.context(timing))
+                .block();
+        stages.time(StageTimers.PRICES_READ, price -> null == price ? StageTimers.NOT_FOUND : StageTimers.SUCCESS, Mono.empty())
+                .block();
+
+        /* Then */
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.PRICES_READ)
+                .tag("outcome", StageTimers.SUCCESS)
+                .timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(5);
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.PRICES_READ)
+                .tag("outcome", StageTimers.NOT_FOUND)
+                .timer().count()).isEqualTo(1);
+        assertThat(timing.header(clock.monotonicTime())).isEqualTo("prices.read;dur=5.000, total;dur=5.000");
+    }
+
+    @Test
+    public void time_FailedReactiveStage_TimedWithErrorOutcome() {
+        /* When */
+        stages.time(StageTimers.PRICES_WRITE, operation -> StageTimers.SUCCESS,
+                Mono.error(new RepositoryUnavailableException("Test Server Exception")))
+                .onErrorResume(ex -> Mono.empty())
+                .block();
+
+        /* Then */
+        assertThat(registry.get(StageTimers.METRIC)
+                .tag("stage", StageTimers.PRICES_WRITE)
+                .tag("outcome", StageTimers.SERVER_ERROR)
+                .tag("exception", "RepositoryUnavailableException")
+                .timer().count()).isEqualTo(1);
+    }
+}
@@ -1,10 +1,24 @@
 package com.myretail.products.repository;
 
 import com.myretail.products.MockData;
+import com.myretail.products.cache.RedSkyProductCache;
+import com.myretail.products.concurrency.AdaptiveLimiter;
+import com.myretail.products.concurrency.Hedger;
+import com.myretail.products.concurrency.SingleFlight;
+import com.myretail.products.configuration.RedSkyBatchConfiguration;
+import com.myretail.products.configuration.RedSkyCacheConfiguration;
 import com.myretail.products.configuration.RedSkyConfiguration;
 import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyBatchResponse;
+import com.myretail.products.model.redsky.RedSkyItem;
 import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
 import com.myretail.products.model.redsky.RedSkyResponse;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,12 +28,22 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -28,14 +52,53 @@ public class ProductsTests {
     @Mock
     private RestTemplate restTemplate;
 
+    private CircuitBreaker circuitBreaker;
+
+    private AdaptiveLimiter limiter;
+
+    private MeterRegistry registry;
+
     private Products products;
 
     @Before
     public void initialize() {
+        products = products(new RedSkyBatchConfiguration(false, null, 50, Duration.ofMillis(2)));
+    }
+
+    private Products products(RedSkyBatchConfiguration batchConfiguration) {
         RedSkyConfiguration configuration = new RedSkyConfiguration(
                 "https://redsky.target.com/v2/pdp/tcin",
                 "exclude1,excludes2");
-        products = new Products(configuration, restTemplate);
+        RedSkyCacheConfiguration cacheConfiguration = new RedSkyCacheConfiguration(
+                true,
+                100,
+                Duration.ofMinutes(10),
+                Duration.ofSeconds(30));
+        registry = new SimpleMeterRegistry();
+        circuitBreaker = CircuitBreaker.ofDefaults("redsky");
+        limiter = new AdaptiveLimiter(1, 1, 1, Duration.ofSeconds(1), 0.9, registry.counter("redsky.limiter.rejected"));
+        return new Products(
+                configuration,
+                batchConfiguration,
+                restTemplate,
+                new RedSkyProductCache(cacheConfiguration, registry),
+                new SingleFlight<>(registry.counter("redsky.requests.coalesced")),
+                circuitBreaker,
+                Bulkhead.ofDefaults("redsky"),
+                limiter,
+                new Hedger(
+                        false,
+                        null,
+                        Hedger.Capacity.UNLIMITED,
+                        0.95,
+                        Duration.ofMillis(50),
+                        5,
+                        1000,
+                        registry.counter("redsky.hedge.sent"),
+                        registry.counter("redsky.hedge.won"),
+                        registry.counter("redsky.hedge.denied")),
+                new StageTimers(registry),
+                registry);
     }
 
     @Test
@@ -98,4 +161,228 @@ public class ProductsTests {
         /* Then */
         assertThat(result.isPresent()).isFalse();
     }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getOne_EndpointTimeout_ThrowsException() {
+        /* Given */
+        Long productId = 16696652L;
+
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenThrow(new ResourceAccessException("Test Read Timeout"));
+
+        /* When */
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isFalse();
+    }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getOne_CircuitOpen_ThrowsExceptionWithoutFetching() {
+        /* Given */
+        Long productId = 16696652L;
+
+        circuitBreaker.transitionToOpenState();
+
+        /* When */
+        try {
+            products.getOne(productId);
+        } finally {
+            /* Then */
+            verify(restTemplate, never()).getForEntity(any(), eq(RedSkyResponse.class));
+        }
+    }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getOne_OverConcurrencyLimit_ThrowsExceptionWithoutFetching() {
+        /* Given */
+        Long productId = 16696652L;
+
+        limiter.acquire();
+
+        /* When */
+        try {
+            products.getOne(productId);
+        } finally {
+            /* Then */
+            verify(restTemplate, never()).getForEntity(any(), eq(RedSkyResponse.class));
+        }
+    }
+
+    @Test
+    public void getOne_EndpointServerError_ReleasesConcurrencyLimit() {
+        /* Given */
+        Long productId = 16696652L;
+        RedSkyResponse expected = MockData.validRedSkyResponse();
+
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR))
+                .thenReturn(new ResponseEntity<>(expected, HttpStatus.OK));
+
+        /* When */
+        try {
+            products.getOne(productId);
+        } catch (RepositoryUnavailableException ignored) {
+            // The failed call must not keep its permit
+        }
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isTrue();
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void getOne_KnownIdTwice_FetchesOnce() {
+        /* Given */
+        Long productId = 16696652L;
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
+
+        /* When */
+        products.getOne(productId);
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isTrue();
+        verify(restTemplate, times(1)).getForEntity(any(), eq(RedSkyResponse.class));
+        assertThat(registry.get("cache.gets").tag("cache", "redsky.products").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.gets").tag("cache", "redsky.products").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void getOne_UnknownIdTwice_FetchesOnce() {
+        /* Given */
+        Long productId = 16696652L;
+
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND, "Test Client Exception"));
+
+        /* When */
+        products.getOne(productId);
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isFalse();
+        verify(restTemplate, times(1)).getForEntity(any(), eq(RedSkyResponse.class));
+    }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getOne_UndecodableResponse_ThrowsException() {
+        /* Given */
+        Long productId = 16696652L;
+
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenThrow(new RestClientException("Test Decoding Exception"));
+
+        /* When */
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isFalse();
+    }
+
+    @Test
+    public void getOne_ResponseWithoutProduct_ThrowsExceptionNotCached() {
+        /* Given */
+        Long productId = 16696652L;
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(new RedSkyResponse(null), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class))).thenReturn(response);
+
+        /* When */
+        for (int i = 0; i < 2; i++) {
+            try {
+                products.getOne(productId);
+            } catch (RepositoryUnavailableException ex) {
+                // Malformed responses are expected to be passed on without being cached
+            }
+        }
+
+        /* Then */
+        verify(restTemplate, times(2)).getForEntity(any(), eq(RedSkyResponse.class));
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(2);
+    }
+
+    @Test
+    public void getOne_EndpointServerErrorThenKnownId_FetchesTwice() {
+        /* Given */
+        Long productId = 16696652L;
+
+        ResponseEntity<RedSkyResponse> response = new ResponseEntity<>(MockData.validRedSkyResponse(), HttpStatus.OK);
+        when(restTemplate.getForEntity(any(), eq(RedSkyResponse.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR, "Test Server Exception"))
+                .thenReturn(response);
+
+        /* When */
+        try {
+            products.getOne(productId);
+        } catch (RepositoryUnavailableException ex) {
+            // Server errors are expected to be passed on without being cached
+        }
+        Optional<RedSkyProduct> result = products.getOne(productId);
+
+        /* Then */
+        assertThat(result.isPresent()).isTrue();
+        verify(restTemplate, times(2)).getForEntity(any(), eq(RedSkyResponse.class));
+    }
+
+    @Test
+    public void getOne_BatchingConcurrentMisses_FetchesInOneBatch() {
+        /* Given */
+        products = products(new RedSkyBatchConfiguration(
+                true,
+                "https://redsky.target.com/v2/pdp/tcins",
+                2,
+                Duration.ofSeconds(5)));
+        RedSkyProduct known = new RedSkyProduct(new RedSkyItem("16696652", new RedSkyProductDescription("Test Product")));
+
+        when(restTemplate.getForObject(any(URI.class), eq(RedSkyBatchResponse.class)))
+                .thenReturn(new RedSkyBatchResponse(Collections.singletonList(known)));
+
+        /* When */
+        CompletableFuture<Optional<RedSkyProduct>> first = CompletableFuture.supplyAsync(() -> products.getOne(16696652L));
+        Optional<RedSkyProduct> second = products.getOne(13860428L);
+
+        /* Then */
+        assertThat(first.join()).contains(known);
+        assertThat(second.isPresent()).isFalse();
+        verify(restTemplate, times(1)).getForObject(any(URI.class), eq(RedSkyBatchResponse.class));
+        verify(restTemplate, never()).getForEntity(any(), eq(RedSkyResponse.class));
+        assertThat(registry.get("redsky.batch.fill").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getOne_BatchingEndpointServerError_ThrowsException() {
+        /* Given */
+        products = products(new RedSkyBatchConfiguration(
+                true,
+                "https://redsky.target.com/v2/pdp/tcins",
+                1,
+                Duration.ofMillis(2)));
+
+        when(restTemplate.getForObject(any(URI.class), eq(RedSkyBatchResponse.class)))
+                .thenThrow(new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+
+        /* When */
+        products.getOne(16696652L);
+
+        /* Then */
+        // Validation is purely that the exception is thrown
+    }
+
+    @Test
+    public void formatBatchUri_ProductIds_CommaSeparatedTcins() {
+        /* Given */
+        RedSkyConfiguration configuration = new RedSkyConfiguration("https://redsky.target.com/v2/pdp/tcin", "taxonomy");
+        RedSkyBatchConfiguration batchConfiguration = new RedSkyBatchConfiguration(
+                true,
+                "https://redsky.target.com/v2/pdp/tcins",
+                50,
+                Duration.ofMillis(2));
+
+        /* When */
+        URI result = Products.formatBatchUri(configuration, batchConfiguration, Arrays.asList(1L, 2L, 3L));
+
+        /* Then */
+        assertThat(result.toString()).isEqualTo("https://redsky.target.com/v2/pdp/tcins?tcins=1,2,3&excludes=taxonomy");
+    }
 }
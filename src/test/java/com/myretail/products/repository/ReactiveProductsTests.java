@@ -0,0 +1,187 @@
+package com.myretail.products.repository;
+
+import com.myretail.products.cache.RedSkyProductCache;
+import com.myretail.products.configuration.RedSkyCacheConfiguration;
+import com.myretail.products.configuration.RedSkyConfiguration;
+import com.myretail.products.configuration.RedSkyPoolConfiguration;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.ServerTiming;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.redsky.RedSkyItem;
+import com.myretail.products.model.redsky.RedSkyProduct;
+import com.myretail.products.model.redsky.RedSkyProductDescription;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReactiveProductsTests {
+    private CircuitBreaker circuitBreaker;
+    private RedSkyProductCache cache;
+    private AtomicInteger requests;
+    private MeterRegistry registry;
+
+    @Before
+    public void initialize() {
+        circuitBreaker = CircuitBreaker.ofDefaults("redsky");
+        registry = new SimpleMeterRegistry();
+        cache = new RedSkyProductCache(
+                new RedSkyCacheConfiguration(true, 100, Duration.ofMinutes(10), Duration.ofSeconds(30)),
+                registry);
+        requests = new AtomicInteger();
+    }
+
+    @Test
+    public void getOne_KnownByRedSky_ProductCached() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"product\":{\"item\":{\"tcin\":\"123\",\"product_description\":{\"title\":\"Title\"}}}}")
+                .build()));
+        RedSkyProduct expected = new RedSkyProduct(new RedSkyItem("123", new RedSkyProductDescription("Title")));
+
+        /* When */
+        RedSkyProduct first = products.getOne(123L).block();
+        RedSkyProduct second = products.getOne(123L).block();
+
+        /* Then */
+        assertThat(first).isEqualTo(expected);
+        assertThat(second).isEqualTo(expected);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(1);
+    }
+
+    @Test
+    public void getOne_ServerTimingInContext_FetchAndHitTimed() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{\"product\":{\"item\":{\"tcin\":\"123\",\"product_description\":{\"title\":\"Title\"}}}}")
+                .build()));
+        ServerTiming timing = ServerTiming.of(System.nanoTime());
+
+        /* When */
+        products.getOne(123L).subscriberContext(ServerTiming.context(timing)).block();
+        products.getOne(123L).subscriberContext(ServerTiming.context(timing)).block();
+
+        /* Then */
+        assertThat(registry.get(StageTimers.METRIC).tag("stage", StageTimers.REDSKY).tag("outcome", StageTimers.MISS).timer().count()).isEqualTo(1);
+        assertThat(registry.get(StageTimers.METRIC).tag("stage", StageTimers.REDSKY).tag("outcome", StageTimers.HIT).timer().count()).isEqualTo(1);
+        assertThat(timing.header(System.nanoTime())).startsWith("redsky;dur=");
+    }
+
+    @Test
+    public void getOne_ClientError_EmptyAndCached() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+
+        /* When */
+        RedSkyProduct first = products.getOne(123L).block();
+        RedSkyProduct second = products.getOne(123L).block();
+
+        /* Then */
+        assertThat(first).isNull();
+        assertThat(second).isNull();
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(cache.getIfPresent(123L)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    public void getOne_ServerError_ThrowsExceptionNotCached() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()));
+
+        /* When */
+        Mono<RedSkyProduct> result = products.getOne(123L);
+
+        /* Then */
+        StepVerifier.create(result).verifyError(RepositoryUnavailableException.class);
+        assertThat(cache.getIfPresent(123L)).isNull();
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    public void getOne_ResponseWithoutProduct_ThrowsExceptionNotCached() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body("{}")
+                .build()));
+
+        /* When */
+        Mono<RedSkyProduct> result = products.getOne(123L);
+
+        /* Then */
+        StepVerifier.create(result).verifyError(RepositoryUnavailableException.class);
+        assertThat(cache.getIfPresent(123L)).isNull();
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    public void getOne_CircuitOpen_ThrowsExceptionWithoutCallingRedSky() {
+        /* Given */
+        ReactiveProducts products = products(Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+        circuitBreaker.transitionToOpenState();
+
+        /* When */
+        Mono<RedSkyProduct> result = products.getOne(123L);
+
+        /* Then */
+        StepVerifier.create(result).verifyError(RepositoryUnavailableException.class);
+        assertThat(requests.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void getOne_Cancelled_ReleasesPermission() {
+        /* Given */
+        circuitBreaker = CircuitBreaker.of("redsky", CircuitBreakerConfig.custom()
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .build());
+        circuitBreaker.transitionToOpenState();
+        circuitBreaker.transitionToHalfOpenState();
+        ReactiveProducts products = products(Mono.never());
+
+        /* When */
+        Disposable lookup = products.getOne(123L).subscribe();
+        boolean permittedWhileInFlight = circuitBreaker.tryAcquirePermission();
+        lookup.dispose();
+
+        /* Then */
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(permittedWhileInFlight).isFalse();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getMetrics().getNumberOfBufferedCalls()).isEqualTo(0);
+    }
+
+    private ReactiveProducts products(Mono<ClientResponse> response) {
+        WebClient client = WebClient.builder()
+                .exchangeFunction(request -> {
+                    requests.incrementAndGet();
+                    return response;
+                })
+                .build();
+        return new ReactiveProducts(
+                new RedSkyConfiguration("https://redsky.target.com/v2/pdp/tcin", "exclude1,excludes2"),
+                new RedSkyPoolConfiguration(),
+                client,
+                cache,
+                circuitBreaker,
+                new StageTimers(registry));
+    }
+}
@@ -0,0 +1,84 @@
+package com.myretail.products.service;
+
+import com.myretail.products.configuration.ExportConfiguration;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.response.Price;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.repository.ProductPrices;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.util.CloseableIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PriceExportServiceTests {
+    @Mock
+    private ProductPrices prices;
+
+    @Mock
+    private CloseableIterator<ProductPrice> cursor;
+
+    private PriceExportService service;
+
+    @Before
+    public void initialize() {
+        service = new PriceExportService(prices, new ExportConfiguration(2));
+    }
+
+    @Test
+    public void export_MorePricesThanBatchSize_PricesInBatchesCursorClosed() {
+        /* Given */
+        Iterator<ProductPrice> iterator = Arrays.asList(
+                new ProductPrice(1L, 1.0F, "USD"),
+                new ProductPrice(2L, 2.0F, "EUR"),
+                new ProductPrice(3L, 3.0F, "GBP")).iterator();
+
+        when(prices.streamAll(2)).thenReturn(cursor);
+        when(cursor.hasNext()).then(invocation -> iterator.hasNext());
+        when(cursor.next()).then(invocation -> iterator.next());
+
+        List<List<Product>> batches = new ArrayList<>();
+
+        /* When */
+        long count = service.export(batches::add);
+
+        /* Then */
+        assertThat(count).isEqualTo(3);
+        assertThat(batches).containsExactly(
+                Arrays.asList(
+                        new Product(1L, null, new Price(1.0F, "USD")),
+                        new Product(2L, null, new Price(2.0F, "EUR"))),
+                Collections.singletonList(
+                        new Product(3L, null, new Price(3.0F, "GBP"))));
+        verify(cursor).close();
+    }
+
+    @Test
+    public void export_NoPrices_NothingExportedCursorClosed() {
+        /* Given */
+        when(prices.streamAll(2)).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+
+        List<List<Product>> batches = new ArrayList<>();
+
+        /* When */
+        long count = service.export(batches::add);
+
+        /* Then */
+        assertThat(count).isEqualTo(0);
+        assertThat(batches).isEmpty();
+        verify(cursor).close();
+    }
+}
@@ -0,0 +1,164 @@
+package com.myretail.products.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.cache.ProductResponseCache;
+import com.myretail.products.configuration.BatchConfiguration;
+import com.myretail.products.configuration.IngestionConfiguration;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.response.PriceIngestionOutcome;
+import com.myretail.products.repository.ProductPrices;
+import com.myretail.products.validation.RequestValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PriceIngestionServiceTests {
+    @Mock
+    private ProductPrices prices;
+
+    @Mock
+    private CurrencyCodeRegistry currencyCodes;
+
+    @Mock
+    private ProductResponseCache responseCache;
+
+    private ProductPriceCache priceCache;
+
+    private PriceIngestionService service;
+
+    @Before
+    public void initialize() {
+        RequestValidator validator = new RequestValidator(currencyCodes, new BatchConfiguration(100), new StageTimers(new SimpleMeterRegistry()));
+        priceCache = new ProductPriceCache(new PriceCacheConfiguration(true, 16, Duration.ofMinutes(5)), new SimpleMeterRegistry());
+        service = new PriceIngestionService(prices, priceCache, responseCache, validator, new ObjectMapper(), new IngestionConfiguration(2, 80));
+    }
+
+    @Test
+    public void ingest_ValidAndInvalidLines_OutcomePerLineInBatches() throws IOException {
+        /* Given */
+        BufferedReader lines = lines(
+                "{\"id\":1,\"current_price\":{\"value\":1.5,\"currency_code\":\"usd\"}}",
+                "",
+                "{\"id\":2,\"current_price\":{\"value\":-1,\"currency_code\":\"USD\"}}",
+                "not json",
+                "{\"id\":3,\"current_price\":{\"value\":3,\"currency_code\":\"USD\"}}");
+
+        when(currencyCodes.contains(anyString())).thenReturn(true);
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(1L, 1.5F, "USD"))))
+                .thenReturn(Collections.singletonList(PriceSaveOperation.CREATE));
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(3L, 3.0F, "USD"))))
+                .thenReturn(Collections.singletonList(PriceSaveOperation.UPDATE));
+
+        List<List<PriceIngestionOutcome>> batches = new ArrayList<>();
+
+        /* When */
+        service.ingest(lines, batches::add);
+
+        /* Then */
+        assertThat(batches).containsExactly(
+                Arrays.asList(
+                        new PriceIngestionOutcome(1, 1L, PriceIngestionOutcome.CREATED, null),
+                        new PriceIngestionOutcome(3, null, PriceIngestionOutcome.REJECTED, "Price must be greater than or equal to 0")),
+                Arrays.asList(
+                        new PriceIngestionOutcome(4, null, PriceIngestionOutcome.REJECTED, "Malformed price update"),
+                        new PriceIngestionOutcome(5, 3L, PriceIngestionOutcome.UPDATED, null)));
+        verify(responseCache).invalidate(1L);
+        verify(responseCache).invalidate(3L);
+    }
+
+    @Test
+    public void ingest_SameProductTwice_SavedInSeparateBatches() throws IOException {
+        /* Given */
+        BufferedReader lines = lines(
+                "{\"id\":1,\"current_price\":{\"value\":1,\"currency_code\":\"USD\"}}",
+                "{\"id\":1,\"current_price\":{\"value\":2,\"currency_code\":\"USD\"}}");
+
+        when(currencyCodes.contains(anyString())).thenReturn(true);
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(1L, 1.0F, "USD"))))
+                .thenReturn(Collections.singletonList(PriceSaveOperation.CREATE));
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(1L, 2.0F, "USD"))))
+                .thenReturn(Collections.singletonList(PriceSaveOperation.UPDATE));
+
+        List<PriceIngestionOutcome> outcomes = new ArrayList<>();
+
+        /* When */
+        service.ingest(lines, outcomes::addAll);
+
+        /* Then */
+        assertThat(outcomes).containsExactly(
+                new PriceIngestionOutcome(1, 1L, PriceIngestionOutcome.CREATED, null),
+                new PriceIngestionOutcome(2, 1L, PriceIngestionOutcome.UPDATED, null));
+        verify(prices).upsertAll(Collections.singletonList(new ProductPrice(1L, 1.0F, "USD")));
+        verify(prices).upsertAll(Collections.singletonList(new ProductPrice(1L, 2.0F, "USD")));
+    }
+
+    @Test
+    public void ingest_UpsertFailed_LineRejected() throws IOException {
+        /* Given */
+        BufferedReader lines = lines("{\"id\":1,\"current_price\":{\"value\":1,\"currency_code\":\"USD\"}}");
+
+        when(currencyCodes.contains(anyString())).thenReturn(true);
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(1L, 1.0F, "USD"))))
+                .thenReturn(Collections.singletonList(null));
+
+        List<PriceIngestionOutcome> outcomes = new ArrayList<>();
+
+        /* When */
+        service.ingest(lines, outcomes::addAll);
+
+        /* Then */
+        assertThat(outcomes).containsExactly(
+                new PriceIngestionOutcome(1, 1L, PriceIngestionOutcome.REJECTED, "Price could not be saved"));
+    }
+
+    @Test
+    public void ingest_LineLongerThanMaximum_LineRejectedOthersSaved() throws IOException {
+        /* Given */
+        StringBuilder huge = new StringBuilder("{\"id\":1,\"name\":\"");
+        for (int i = 0; i < 100_000; i++) huge.append('x');
+        BufferedReader lines = lines(
+                huge.append("\"}").toString(),
+                "{\"id\":2,\"current_price\":{\"value\":2,\"currency_code\":\"USD\"}}\r");
+
+        when(currencyCodes.contains(anyString())).thenReturn(true);
+        when(prices.upsertAll(Collections.singletonList(new ProductPrice(2L, 2.0F, "USD"))))
+                .thenReturn(Collections.singletonList(PriceSaveOperation.CREATE));
+
+        List<PriceIngestionOutcome> outcomes = new ArrayList<>();
+
+        /* When */
+        service.ingest(lines, outcomes::addAll);
+
+        /* Then */
+        assertThat(outcomes).containsExactly(
+                new PriceIngestionOutcome(1, null, PriceIngestionOutcome.REJECTED, "Price update longer than 80 characters"),
+                new PriceIngestionOutcome(2, 2L, PriceIngestionOutcome.CREATED, null));
+    }
+
+    private static BufferedReader lines(String... lines) {
+        return new BufferedReader(new StringReader(String.join("\n", lines)));
+    }
+}
@@ -1,22 +1,38 @@
 package com.myretail.products.service;
 
 import com.myretail.products.MockData;
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.cache.ProductResponseCache;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.constants.PriceSaveOperation;
 import com.myretail.products.exception.ProductNotFoundException;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.PriceSaveResult;
 import com.myretail.products.model.pricing.ProductPrice;
 import com.myretail.products.model.redsky.RedSkyResponse;
+import com.myretail.products.model.response.Product;
 import com.myretail.products.model.response.ProductError;
 import com.myretail.products.model.response.ProductResponse;
 import com.myretail.products.repository.ProductPrices;
 import com.myretail.products.repository.Products;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -27,11 +43,20 @@ public class ProductServiceTests {
     @Mock
     private ProductPrices prices;
 
+    @Mock
+    private ProductResponseCache responseCache;
+
+    private ProductPriceCache priceCache;
+
+    private MeterRegistry registry;
+
     private ProductService service;
 
     @Before
     public void initialize() {
-        service = new ProductService(products, prices);
+        registry = new SimpleMeterRegistry();
+        priceCache = new ProductPriceCache(new PriceCacheConfiguration(true, 16, Duration.ofMinutes(5)), registry);
+        service = new ProductService(products, prices, priceCache, responseCache, Runnable::run, Runnable::run, new StageTimers(registry));
     }
 
     @Test
@@ -52,6 +77,10 @@ public class ProductServiceTests {
         /* Then */
         assertThat(result).isNotNull();
         assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+        assertThat(registry.get(StageTimers.METRIC).tag("stage", StageTimers.PRICES_READ).tag("outcome", StageTimers.SUCCESS).timer().count()).isEqualTo(1);
+        assertThat(registry.get(StageTimers.METRIC).tag("stage", StageTimers.BUILD).timer().count()).isEqualTo(1);
+        assertThat(registry.get("prices.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(priceCache.getIfPresent(productId)).isEqualTo(priceResponse);
     }
 
     @Test
@@ -90,4 +119,175 @@ public class ProductServiceTests {
         /* Then */
         // Validation is purely that the exception is thrown
     }
+
+    @Test(expected = RepositoryUnavailableException.class)
+    public void getProduct_ValidIdRedSkyUnavailable_ThrowsRepositoryUnavailable() {
+        /* Given */
+        Long productId = 123456789L;
+
+        when(products.getOne(productId)).thenThrow(new RepositoryUnavailableException("Test Server Exception"));
+
+        /* When */
+        ProductResponse result = service.getProduct(productId);
+
+        /* Then */
+        // Validation is purely that the exception is thrown
+    }
+
+    @Test
+    public void getProduct_PriceCached_FullResponseWithoutReadingPrice() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+        priceCache.put(MockData.validPriceResponse());
+
+        when(products.getOne(productId)).thenReturn(Optional.of(redSkyResponse.getProduct()));
+
+        /* When */
+        ProductResponse result = service.getProduct(productId);
+
+        /* Then */
+        assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+        verify(prices, never()).findById(any());
+    }
+
+    @Test
+    public void getCachedProduct_ProductAndPriceCached_FullResponse() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+
+        priceCache.put(MockData.validPriceResponse());
+        when(products.getCached(productId)).thenReturn(Optional.of(MockData.validRedSkyResponse().getProduct()));
+
+        /* When */
+        ProductResponse result = service.getCachedProduct(productId);
+
+        /* Then */
+        assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+        verify(products, never()).getOne(any());
+        assertThat(registry.get("prices.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void getCachedProduct_PriceNotCached_Null() {
+        /* Given */
+        Long productId = 123456789L;
+
+        when(products.getCached(productId)).thenReturn(Optional.of(MockData.validRedSkyResponse().getProduct()));
+
+        /* When */
+        ProductResponse result = service.getCachedProduct(productId);
+
+        /* Then */
+        assertThat(result).isNull();
+        verify(prices, never()).findById(any());
+        assertThat(registry.get("prices.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(0);
+    }
+
+    @Test
+    public void getProductWithPrice_ValidIdKnownByRedSky_FullResponseWithoutReadingPrice() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+        ProductPrice priceResponse = MockData.validPriceResponse();
+
+        when(products.getOne(productId)).thenReturn(Optional.of(redSkyResponse.getProduct()));
+
+        /* When */
+        ProductResponse result = service.getProduct(productId, priceResponse);
+
+        /* Then */
+        assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+        verify(prices, never()).findById(any());
+    }
+
+    @Test
+    public void saveProductPrice_UnknownPrice_CreateOperationWithSavedPrice() {
+        /* Given */
+        Long productId = 123456789L;
+        Product product = MockData.validRequest();
+        ProductPrice expected = new ProductPrice(productId, 100.00F, "USD");
+
+        when(prices.upsert(expected)).thenReturn(PriceSaveOperation.CREATE);
+
+        /* When */
+        PriceSaveResult result = service.saveProductPrice(productId, product);
+
+        /* Then */
+        assertThat(result.getOperation()).isEqualTo(PriceSaveOperation.CREATE);
+        assertThat(result.getPrice()).isEqualTo(expected);
+        verify(responseCache).invalidate(productId);
+    }
+
+    @Test
+    public void saveProductPrice_KnownPrice_UpdateOperationWithSavedPrice() {
+        /* Given */
+        Long productId = 123456789L;
+        Product product = MockData.validRequest();
+        ProductPrice expected = new ProductPrice(productId, 100.00F, "USD");
+
+        when(prices.upsert(expected)).thenReturn(PriceSaveOperation.UPDATE);
+
+        /* When */
+        PriceSaveResult result = service.saveProductPrice(productId, product);
+
+        /* Then */
+        assertThat(result.getOperation()).isEqualTo(PriceSaveOperation.UPDATE);
+        assertThat(result.getPrice()).isEqualTo(expected);
+        assertThat(priceCache.getIfPresent(productId)).isEqualTo(expected);
+        verify(responseCache).invalidate(productId);
+    }
+
+    @Test
+    public void getProducts_ValidIdsKnownByAllUpstreamSources_FullResponseObjectNoErrors() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+        ProductPrice priceResponse = MockData.validPriceResponse();
+
+        when(products.getOne(productId)).thenReturn(Optional.of(redSkyResponse.getProduct()));
+        when(prices.findAllById(any())).thenReturn(Collections.singletonList(priceResponse));
+
+        /* When */
+        ProductResponse result = service.getProducts(Arrays.asList(productId, productId));
+
+        /* Then */
+        assertThat(result).isNotNull();
+        assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+    }
+
+    @Test
+    public void getProducts_ValidIdsPartiallyKnownByUpstreamSources_PartialResponseWithErrors() {
+        /* Given */
+        Long productId = 123456789L;
+        Long unknownProductId = 987654321L;
+        Long unavailableProductId = 111111111L;
+
+        ProductResponse expected = MockData.validResponse();
+        expected.getData().get(0).setPrice(null);
+        expected.getErrors().add(new ProductError(ProductError.PRICING, "Product 123456789 not found"));
+        expected.getErrors().add(new ProductError(ProductError.REDSKY, "Product 987654321 not found"));
+        expected.getErrors().add(new ProductError(ProductError.REDSKY, "Product 111111111 unavailable"));
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+
+        when(products.getOne(productId)).thenReturn(Optional.of(redSkyResponse.getProduct()));
+        when(products.getOne(unknownProductId)).thenReturn(Optional.empty());
+        when(products.getOne(unavailableProductId)).thenThrow(new RepositoryUnavailableException("Test Server Exception"));
+        when(prices.findAllById(any())).thenReturn(Collections.emptyList());
+
+        /* When */
+        ProductResponse result = service.getProducts(Arrays.asList(productId, unknownProductId, unavailableProductId));
+
+        /* Then */
+        assertThat(result).isNotNull();
+        assertThat(result).isEqualToComparingFieldByFieldRecursively(expected);
+    }
 }
@@ -0,0 +1,160 @@
+package com.myretail.products.service;
+
+import com.myretail.products.MockData;
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.configuration.RedSkyPoolConfiguration;
+import com.myretail.products.constants.PriceSaveOperation;
+import com.myretail.products.exception.ProductNotFoundException;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.metrics.StageTimers;
+import com.myretail.products.model.pricing.ProductPrice;
+import com.myretail.products.model.redsky.RedSkyResponse;
+import com.myretail.products.model.response.Product;
+import com.myretail.products.model.response.ProductError;
+import com.myretail.products.model.response.ProductResponse;
+import com.myretail.products.repository.ReactiveProductPrices;
+import com.myretail.products.repository.ReactiveProducts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReactiveProductServiceTests {
+    @Mock
+    private ReactiveProducts products;
+
+    @Mock
+    private ReactiveProductPrices prices;
+
+    private ReactiveProductService service;
+
+    @Before
+    public void initialize() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductPriceCache priceCache = new ProductPriceCache(new PriceCacheConfiguration(true, 16, Duration.ofMinutes(5)), registry);
+        service = new ReactiveProductService(products, prices, priceCache, new StageTimers(registry), new RedSkyPoolConfiguration());
+    }
+
+    @Test
+    public void getProduct_ValidIdKnownByAllUpstreamSources_FullResponseObjectNoErrors() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+        ProductPrice priceResponse = MockData.validPriceResponse();
+
+        when(products.getOne(productId)).thenReturn(Mono.just(redSkyResponse.getProduct()));
+        when(prices.findById(productId)).thenReturn(Mono.just(priceResponse));
+
+        /* When */
+        Mono<ProductResponse> result = service.getProduct(productId);
+
+        /* Then */
+        StepVerifier.create(result)
+                .assertNext(response -> assertThat(response).isEqualToComparingFieldByFieldRecursively(expected))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getProduct_ValidIdKnownByRedSkyUnknownByPricing_PartialResponseWithError() {
+        /* Given */
+        Long productId = 123456789L;
+        ProductResponse expected = MockData.validResponse();
+        expected.getData().get(0).setPrice(null);
+        expected.getErrors().add(new ProductError(ProductError.PRICING, "Product not found"));
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+
+        when(products.getOne(productId)).thenReturn(Mono.just(redSkyResponse.getProduct()));
+        when(prices.findById(productId)).thenReturn(Mono.empty());
+
+        /* When */
+        Mono<ProductResponse> result = service.getProduct(productId);
+
+        /* Then */
+        StepVerifier.create(result)
+                .assertNext(response -> assertThat(response).isEqualToComparingFieldByFieldRecursively(expected))
+                .verifyComplete();
+    }
+
+    @Test
+    public void getProduct_ValidIdUnkownByRedSkyKnownByPricing_SignalsProductNotFound() {
+        /* Given */
+        Long productId = 123456789L;
+
+        when(products.getOne(productId)).thenReturn(Mono.empty());
+        when(prices.findById(productId)).thenReturn(Mono.just(MockData.validPriceResponse()));
+
+        /* When */
+        Mono<ProductResponse> result = service.getProduct(productId);
+
+        /* Then */
+        StepVerifier.create(result)
+                .expectError(ProductNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void saveProductPrice_UnknownPrice_CreateOperationWithSavedPrice() {
+        /* Given */
+        Long productId = 123456789L;
+        Product product = MockData.validRequest();
+        ProductPrice expected = new ProductPrice(productId, 100.00F, "USD");
+
+        when(prices.upsert(expected)).thenReturn(Mono.just(PriceSaveOperation.CREATE));
+
+        /* When */
+        StepVerifier.create(service.saveProductPrice(productId, product))
+
+        /* Then */
+                .assertNext(result -> {
+                    assertThat(result.getOperation()).isEqualTo(PriceSaveOperation.CREATE);
+                    assertThat(result.getPrice()).isEqualTo(expected);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    public void getProducts_ValidIdsPartiallyKnownByUpstreamSources_PartialResponseWithErrors() {
+        /* Given */
+        Long productId = 123456789L;
+        Long unknownProductId = 987654321L;
+        Long unavailableProductId = 111111111L;
+
+        ProductResponse expected = MockData.validResponse();
+        expected.getData().get(0).setPrice(null);
+        expected.getErrors().add(new ProductError(ProductError.PRICING, "Product 123456789 not found"));
+        expected.getErrors().add(new ProductError(ProductError.REDSKY, "Product 987654321 not found"));
+        expected.getErrors().add(new ProductError(ProductError.REDSKY, "Product 111111111 unavailable"));
+
+        RedSkyResponse redSkyResponse = MockData.validRedSkyResponse();
+
+        when(products.getOne(productId)).thenReturn(Mono.just(redSkyResponse.getProduct()));
+        when(products.getOne(unknownProductId)).thenReturn(Mono.empty());
+        when(products.getOne(unavailableProductId)).thenReturn(Mono.error(new RepositoryUnavailableException("Test Server Exception")));
+        when(prices.findAllById(ArgumentMatchers.<Iterable<Long>>any())).thenReturn(Flux.empty());
+
+        /* When */
+        Mono<ProductResponse> result = service.getProducts(Arrays.asList(productId, unknownProductId, unavailableProductId, productId));
+
+        /* Then */
+        StepVerifier.create(result)
+                .assertNext(response -> assertThat(response).isEqualToComparingFieldByFieldRecursively(expected))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,61 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.model.pricing.CurrencyCode;
+import com.myretail.products.repository.CurrencyCodes;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadCurrencyCodesTests {
+
+    @Mock
+    private CurrencyCodes currencyCodes;
+
+    private CurrencyCodeRegistry registry;
+
+    @Before
+    public void initialize() {
+        registry = new CurrencyCodeRegistry(currencyCodes);
+    }
+
+    @Test
+    public void run_RepositoryAvailable_CodesServedWithoutLoadingAgain() {
+        /* Given */
+        when(currencyCodes.findAll()).thenReturn(Collections.singletonList(new CurrencyCode("USD")));
+
+        /* When */
+        new LoadCurrencyCodes(registry).run(null);
+        boolean result = registry.contains("USD");
+
+        /* Then */
+        assertThat(result).isTrue();
+        verify(currencyCodes, times(1)).findAll();
+    }
+
+    @Test
+    public void run_RepositoryUnavailable_CodesLoadedOnDemand() {
+        /* Given */
+        when(currencyCodes.findAll())
+                .thenThrow(new IllegalStateException("unavailable"))
+                .thenReturn(Collections.singletonList(new CurrencyCode("USD")));
+
+        /* When */
+        new LoadCurrencyCodes(registry).run(null);
+        boolean result = registry.contains("USD");
+
+        /* Then */
+        assertThat(result).isTrue();
+        verify(currencyCodes, times(2)).findAll();
+    }
+}
@@ -0,0 +1,54 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.model.pricing.CurrencyCode;
+import com.myretail.products.repository.CurrencyCodes;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PreloadCurrencyCodesTests {
+
+    @Mock
+    private CurrencyCodes currencyCodes;
+
+    private CurrencyCodeRegistry registry;
+
+    @Before
+    public void initialize() {
+        registry = new CurrencyCodeRegistry(currencyCodes);
+    }
+
+    @Test
+    public void afterPropertiesSet_RepositoryAvailable_CodesServedWithoutLoadingAgain() {
+        /* Given */
+        when(currencyCodes.findAll()).thenReturn(Collections.singletonList(new CurrencyCode("USD")));
+
+        /* When */
+        new PreloadCurrencyCodes(registry).afterPropertiesSet();
+        boolean result = registry.contains("USD");
+
+        /* Then */
+        assertThat(result).isTrue();
+        verify(currencyCodes, times(1)).findAll();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void afterPropertiesSet_RepositoryUnavailable_ThrowsException() {
+        /* Given */
+        when(currencyCodes.findAll()).thenThrow(new IllegalStateException("unavailable"));
+
+        /* When */
+        new PreloadCurrencyCodes(registry).afterPropertiesSet();
+    }
+}
@@ -0,0 +1,112 @@
+package com.myretail.products.setup;
+
+import com.myretail.products.MockData;
+import com.myretail.products.cache.ProductPriceCache;
+import com.myretail.products.configuration.PriceCacheConfiguration;
+import com.myretail.products.configuration.WarmupConfiguration;
+import com.myretail.products.exception.RepositoryUnavailableException;
+import com.myretail.products.repository.ProductPrices;
+import com.myretail.products.repository.Products;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WarmupProductsTests {
+    @Mock
+    private Products products;
+
+    @Mock
+    private ProductPrices prices;
+
+    private MeterRegistry registry;
+    private ProductPriceCache priceCache;
+    private WarmupConfiguration configuration;
+
+    @Before
+    public void initialize() {
+        registry = new SimpleMeterRegistry();
+        priceCache = new ProductPriceCache(new PriceCacheConfiguration(true, 16, Duration.ofMinutes(5)), registry);
+        configuration = new WarmupConfiguration(
+                true,
+                new ByteArrayResource("1\n# comment\n\n2\nnot an id\n3\n".getBytes(StandardCharsets.UTF_8)),
+                1000,
+                2,
+                Duration.ofSeconds(30));
+    }
+
+    @Test
+    public void run_ProductIdsFile_ProductsWarmedUpAndReady() throws Exception {
+        /* Given */
+        WarmupProducts warmup = new WarmupProducts(configuration, products, prices, priceCache, Runnable::run, registry);
+
+        when(products.getOne(1L)).thenReturn(Optional.of(MockData.validRedSkyResponse().getProduct()));
+        when(products.getOne(2L)).thenReturn(Optional.empty());
+        when(products.getOne(3L)).thenThrow(new RepositoryUnavailableException("Test Server Exception"));
+        when(prices.findAllById(Arrays.asList(1L, 2L))).thenReturn(Collections.singletonList(MockData.validPriceResponse()));
+        when(prices.findAllById(Collections.singletonList(3L))).thenReturn(Collections.emptyList());
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        /* When */
+        warmup.run(null);
+
+        /* Then */
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.health().getDetails())
+                .containsEntry("phase", "complete")
+                .containsEntry("products", 3)
+                .containsEntry("redsky", 1)
+                .containsEntry("pricing", 1);
+        assertThat(registry.get("warmup.coverage").tag("source", "redsky").gauge().value()).isEqualTo(1.0 / 3);
+        assertThat(registry.get("warmup.duration").timer().count()).isEqualTo(1);
+        assertThat(priceCache.getIfPresent(MockData.validPriceResponse().getProductId())).isEqualTo(MockData.validPriceResponse());
+    }
+
+    @Test
+    public void run_TimeBudgetExceeded_ReadyWithoutWarmingUp() throws Exception {
+        /* Given */
+        configuration.setTimeBudget(Duration.ZERO);
+        WarmupProducts warmup = new WarmupProducts(configuration, products, prices, priceCache, Runnable::run, registry);
+
+        /* When */
+        warmup.run(null);
+
+        /* Then */
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.health().getDetails()).containsEntry("phase", "timed out");
+        verify(products, never()).getOne(any());
+    }
+
+    @Test
+    public void run_Disabled_ReadyWithoutWarmingUp() throws Exception {
+        /* Given */
+        configuration.setEnabled(false);
+        WarmupProducts warmup = new WarmupProducts(configuration, products, prices, priceCache, Runnable::run, registry);
+
+        /* When */
+        warmup.run(null);
+
+        /* Then */
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        verify(products, never()).getOne(any());
+    }
+}
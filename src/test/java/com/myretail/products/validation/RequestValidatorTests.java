@@ -1,15 +1,22 @@
 package com.myretail.products.validation;
 
 import com.myretail.products.MockData;
+import com.myretail.products.cache.CurrencyCodeRegistry;
+import com.myretail.products.configuration.BatchConfiguration;
 import com.myretail.products.exception.BadRequestException;
+import com.myretail.products.metrics.StageTimers;
 import com.myretail.products.model.response.Product;
-import com.myretail.products.repository.CurrencyCodes;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -17,13 +24,13 @@ import static org.mockito.Mockito.when;
 public class RequestValidatorTests {
 
     @Mock
-    private CurrencyCodes currencyCodes;
+    private CurrencyCodeRegistry currencyCodes;
 
     private RequestValidator validator;
 
     @Before
     public void initialize() {
-        validator = new RequestValidator(currencyCodes);
+        validator = new RequestValidator(currencyCodes, new BatchConfiguration(2), new StageTimers(new SimpleMeterRegistry()));
     }
 
     @Test
@@ -62,12 +69,60 @@ public class RequestValidatorTests {
         // Verified by checking for an exception (or not if valid)
     }
 
+    @Test
+    public void validateProductIds_Valid_DoesNothing() {
+        /* Given */
+        List<Long> productIds = Arrays.asList(123456789L, 987654321L);
+
+        /* When */
+        validator.validate(productIds);
+
+        /* Then */
+        // Verified by checking for an exception (or not if valid)
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void validateProductIds_Empty_ThrowsBadRequestException() {
+        /* Given */
+        List<Long> productIds = Collections.emptyList();
+
+        /* When */
+        validator.validate(productIds);
+
+        /* Then */
+        // Verified by checking for an exception (or not if valid)
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void validateProductIds_TooMany_ThrowsBadRequestException() {
+        /* Given */
+        List<Long> productIds = Arrays.asList(123456789L, 987654321L, 111111111L);
+
+        /* When */
+        validator.validate(productIds);
+
+        /* Then */
+        // Verified by checking for an exception (or not if valid)
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void validateProductIds_OneNegative_ThrowsBadRequestException() {
+        /* Given */
+        List<Long> productIds = Arrays.asList(123456789L, -987654321L);
+
+        /* When */
+        validator.validate(productIds);
+
+        /* Then */
+        // Verified by checking for an exception (or not if valid)
+    }
+
     @Test
     public void validateProduct_Valid_DoesNothing() {
         /* Given */
         Product product = MockData.validRequest();
 
-        when(currencyCodes.existsById(anyString())).thenReturn(true);
+        when(currencyCodes.contains(anyString())).thenReturn(true);
 
         /* When */
         validator.validate(product);
@@ -120,7 +175,7 @@ public class RequestValidatorTests {
         Product product = MockData.validRequest();
         product.getPrice().setCurrencyCode("AAA");
 
-        when(currencyCodes.existsById(anyString())).thenReturn(false);
+        when(currencyCodes.contains(anyString())).thenReturn(false);
 
         /* When */
         validator.validate(product);